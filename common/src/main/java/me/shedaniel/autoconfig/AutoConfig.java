@@ -27,20 +27,40 @@ import me.shedaniel.autoconfig.gui.registry.ComposedGuiRegistryAccess;
 import me.shedaniel.autoconfig.gui.registry.DefaultGuiRegistryAccess;
 import me.shedaniel.autoconfig.gui.registry.GuiRegistry;
 import me.shedaniel.autoconfig.serializer.ConfigSerializer;
+import me.shedaniel.autoconfig.util.Utils;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screens.Screen;
 
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 public class AutoConfig {
     public static final String MOD_ID = "autoconfig1u";
     
-    private static final Map<Class<? extends ConfigData>, ConfigHolder<?>> holders = new HashMap<>();
-    private static final Map<Class<? extends ConfigData>, GuiRegistry> guiRegistries = new HashMap<>();
+    private static final Map<Class<? extends ConfigData>, ConfigHolder<?>> holders = new ConcurrentHashMap<>();
+    /**
+     * Reserved before a config is constructed, so that only one concurrent registration loads and saves its file.
+     */
+    private static final ClassValue<AtomicReference<CompletableFuture<ConfigHolder<?>>>> holderSlots = new ClassValue<>() {
+        @Override
+        protected AtomicReference<CompletableFuture<ConfigHolder<?>>> computeValue(Class<?> type) {
+            return new AtomicReference<>();
+        }
+    };
+    private static final ClassValue<GuiRegistry> guiRegistries = new ClassValue<>() {
+        @Override
+        protected GuiRegistry computeValue(Class<?> type) {
+            return new GuiRegistry();
+        }
+    };
     
     private AutoConfig() {
     }
@@ -52,27 +72,93 @@ public class AutoConfig {
         Objects.requireNonNull(configClass);
         Objects.requireNonNull(serializerFactory);
         
-        if (holders.containsKey(configClass)) {
-            throw new RuntimeException(String.format("Config '%s' already registered", configClass));
-        }
-        
         Config definition = configClass.getAnnotation(Config.class);
         
         if (definition == null) {
             throw new RuntimeException(String.format("No @Config annotation on %s!", configClass));
         }
         
-        ConfigSerializer<T> serializer = serializerFactory.create(definition, configClass);
-        ConfigManager<T> manager = new ConfigManager<>(definition, configClass, serializer);
+        AtomicReference<CompletableFuture<ConfigHolder<?>>> slot = holderSlots.get(configClass);
+        CompletableFuture<ConfigHolder<?>> reservation = new CompletableFuture<>();
+        if (!slot.compareAndSet(null, reservation)) {
+            throw new RuntimeException(String.format("Config '%s' already registered", configClass));
+        }
+        
+        ConfigManager<T> manager;
+        try {
+            ConfigSerializer<T> serializer = serializerFactory.create(definition, configClass);
+            manager = new ConfigManager<>(definition, configClass, serializer);
+        } catch (RuntimeException | Error e) {
+            slot.set(null);
+            reservation.completeExceptionally(e);
+            throw e;
+        }
+        reservation.complete(manager);
         holders.put(configClass, manager);
+        ConfigWatcher.watch(manager);
         
         return manager;
     }
     
+    /**
+     * Registers the configs in parallel on the common fork join pool, loading their files concurrently.
+     *
+     * @param configs the config classes mapped to the serializer factories to register them with
+     * @return the config classes mapped to their holders, in the order of the given map
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Map<Class<? extends ConfigData>, ConfigHolder<?>> registerAll(
+            Map<Class<? extends ConfigData>, ConfigSerializer.Factory<?>> configs
+    ) {
+        Objects.requireNonNull(configs);
+        return configs.entrySet().parallelStream()
+                .collect(Utils.toLinkedMap(
+                        Map.Entry::getKey,
+                        entry -> register((Class) entry.getKey(), (ConfigSerializer.Factory) entry.getValue())
+                ));
+    }
+    
+    /**
+     * Watches the files of all registered configs, reloading a config when its file is edited outside the game.
+     * The load listeners are then called on the given executor.
+     * <p>
+     * Costs a single thread which sleeps while no config file changes.
+     *
+     * @param executor the executor to reload configs on
+     */
+    public static void enableHotReload(Executor executor) {
+        Objects.requireNonNull(executor);
+        try {
+            ConfigWatcher.start(executor, holders.values());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to watch the config folder", e);
+        }
+    }
+    
+    /**
+     * Watches the files of all registered configs, reloading a config on the client thread
+     * when its file is edited outside the game.
+     * <p>
+     * A dedicated server has no global instance to dispatch to, pass the server itself
+     * to {@link #enableHotReload(Executor)} there.
+     *
+     * @throws IllegalStateException on a dedicated server
+     * @see #enableHotReload(Executor)
+     */
+    public static void enableHotReload() {
+        if (!Utils.isClient()) {
+            throw new IllegalStateException("Hot reload on a dedicated server needs the server as its executor");
+        }
+        enableHotReload(ClientOnly.gameExecutor());
+    }
+    
     public static <T extends ConfigData> ConfigHolder<T> getConfigHolder(Class<T> configClass) {
         Objects.requireNonNull(configClass);
-        if (holders.containsKey(configClass)) {
-            return (ConfigHolder<T>) holders.get(configClass);
+        CompletableFuture<ConfigHolder<?>> reservation = holderSlots.get(configClass).get();
+        // Still being constructed counts as not registered yet
+        ConfigHolder<?> holder = reservation == null ? null : reservation.getNow(null);
+        if (holder != null) {
+            return (ConfigHolder<T>) holder;
         } else {
             throw new RuntimeException(String.format("Config '%s' has not been registered", configClass));
         }
@@ -80,11 +166,27 @@ public class AutoConfig {
     
     @Environment(EnvType.CLIENT)
     public static <T extends ConfigData> GuiRegistry getGuiRegistry(Class<T> configClass) {
-        return guiRegistries.computeIfAbsent(configClass, n -> new GuiRegistry());
+        return guiRegistries.get(configClass);
     }
     
     @Environment(EnvType.CLIENT)
     public static <T extends ConfigData> Supplier<Screen> getConfigScreen(Class<T> configClass, Screen parent) {
+        return createScreenProvider(configClass, parent);
+    }
+    
+    /**
+     * Like {@link #getConfigScreen(Class, Screen)}, but the supplied screen is a loading screen shown right away,
+     * replaced by the config screen once it has been built without blocking the client thread.
+     *
+     * @see ConfigScreenProvider#getAsync()
+     */
+    @Environment(EnvType.CLIENT)
+    public static <T extends ConfigData> Supplier<Screen> getConfigScreenAsync(Class<T> configClass, Screen parent) {
+        return createScreenProvider(configClass, parent)::getLoadingScreen;
+    }
+    
+    @Environment(EnvType.CLIENT)
+    private static <T extends ConfigData> ConfigScreenProvider<T> createScreenProvider(Class<T> configClass, Screen parent) {
         return new ConfigScreenProvider<>(
                 (ConfigManager<T>) AutoConfig.getConfigHolder(configClass),
                 new ComposedGuiRegistryAccess(
@@ -100,5 +202,10 @@ public class AutoConfig {
     private static class ClientOnly {
         private static final GuiRegistry defaultGuiRegistry =
                 DefaultGuiTransformers.apply(DefaultGuiProviders.apply(new GuiRegistry()));
+        
+        private static Executor gameExecutor() {
+            // Mods may enable hot reload before the client has been created
+            return task -> Minecraft.getInstance().execute(task);
+        }
     }
 }
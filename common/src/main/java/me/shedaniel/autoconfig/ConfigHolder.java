@@ -23,6 +23,8 @@ import me.shedaniel.autoconfig.event.ConfigSerializeEvent;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 @ApiStatus.NonExtendable
@@ -32,14 +34,51 @@ public interface ConfigHolder<T extends ConfigData> extends Supplier<T> {
 
     void save();
     
+    /**
+     * Saves the config to file off the calling thread.
+     * <br>
+     * The save listeners are called on the calling thread, saves requested before a pending save
+     * has started are merged into it, writing the config as it is at that point.
+     * Pending saves are still written when the game exits.
+     * A config holding values that {@link me.shedaniel.autoconfig.util.Utils#deepCopy(Object)} cannot copy
+     * is written on the calling thread instead, like {@link #save()}.
+     *
+     * @return the future completed once the config has been written
+     */
+    CompletableFuture<Void> saveAsync();
+    
+    /**
+     * Sets the time {@link #saveAsync()} waits for further saves before writing the config.
+     *
+     * @param debounce the debounce duration in milliseconds, {@code 0} to write as soon as possible
+     */
+    void setSaveDebounce(long debounce);
+    
     boolean load();
     
     T getConfig();
     
+    /**
+     * Returns the handle to the value at the given path, to be obtained once and kept for reading the value.
+     *
+     * @param path the names of the field and the fields containing it separated by dots, e.g. {@code "module.category.value"}
+     * @param type the type of the value, primitive fields can be read as their wrapper type
+     * @throws IllegalArgumentException if the path does not point to a field of the given type
+     */
+    <V> ConfigKey<V> getKey(String path, Class<V> type);
+    
     void registerSaveListener(ConfigSerializeEvent.Save<T> save);
     
     void registerLoadListener(ConfigSerializeEvent.Load<T> load);
     
+    /**
+     * Registers a listener that is called when the value of a field changes on load or save.
+     *
+     * @param path the names of the field and the fields containing it separated by dots, e.g. {@code "module.category.value"}
+     * @throws IllegalArgumentException if the path does not point to a field of the config class
+     */
+    <V> void registerFieldListener(String path, ConfigSerializeEvent.FieldChange<T, V> listener);
+    
     @Override
     default T get() {
         return getConfig();
@@ -58,4 +97,32 @@ public interface ConfigHolder<T extends ConfigData> extends Supplier<T> {
      * Does not save the set config to file, for that use {@link #save()}.
      */
     void setConfig(T config);
+    
+    /**
+     * Returns the version of the config held by this holder, which is increased every time
+     * the config is loaded, reset, set or edited through {@link #edit(Consumer)}.
+     */
+    long getVersion();
+    
+    /**
+     * Sets whether the config held by this holder is treated as an immutable snapshot.
+     * <br>
+     * In snapshot mode, {@link #getConfig()} returns a consistent config on any thread without locking,
+     * which must not be modified. Changes are made through {@link #edit(Consumer)} instead,
+     * which publishes an edited copy of the config.
+     */
+    void setSnapshotMode(boolean snapshotMode);
+    
+    boolean isSnapshotMode();
+    
+    /**
+     * Edits the config held by this holder.
+     * <br>
+     * In snapshot mode the editor is applied to a copy of the config, which then replaces it.
+     * The editor may be called again if the config was replaced concurrently.
+     * Does not save the edited config to file, for that use {@link #save()}.
+     *
+     * @return the edited config
+     */
+    T edit(Consumer<T> editor);
 }
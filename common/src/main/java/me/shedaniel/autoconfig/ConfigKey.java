@@ -0,0 +1,154 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig;
+
+import com.google.common.primitives.Primitives;
+import me.shedaniel.autoconfig.serializer.PartitioningSerializer;
+import me.shedaniel.autoconfig.util.Utils;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.function.Supplier;
+
+/**
+ * Handle to a value of a registered config, resolved once through {@link ConfigHolder#getKey(String, Class)}.
+ * <br>
+ * Reading a key goes straight to the current config of its holder through a single method handle
+ * chaining the accessors of its fields, without any lookup, making it suitable for code that runs every tick
+ * or frame. Keep keys in {@code static final} fields so that the handle can be inlined.
+ * Modules of lazily read partitioned configs are loaded when a key reads through them.
+ *
+ * @param <V> the type of the value
+ */
+public final class ConfigKey<V> implements Supplier<V> {
+    private final ConfigHolder<?> holder;
+    private final String path;
+    private final Class<?> type;
+    /**
+     * Reads the value from a config, of type {@code (Object)Object}.
+     */
+    private final MethodHandle getter;
+    
+    ConfigKey(ConfigHolder<?> holder, String path) {
+        this.holder = holder;
+        this.path = path;
+        Field[] chain = resolve(holder.getConfigClass(), path);
+        this.type = chain[chain.length - 1].getType();
+        MethodHandle getter = PartitioningSerializer.GlobalData.class.isAssignableFrom(holder.getConfigClass())
+                ? moduleGetter(chain[0].getType())
+                : Utils.getterHandleUnsafely(chain[0]);
+        for (int i = 1; i < chain.length; i++) {
+            getter = MethodHandles.filterReturnValue(getter, Utils.getterHandleUnsafely(chain[i]));
+        }
+        this.getter = getter;
+    }
+    
+    /**
+     * Returns the value in the current config of the holder.
+     */
+    @Override
+    public V get() {
+        return getFrom(holder.getConfig());
+    }
+    
+    /**
+     * Returns the value in the given config, which must be of the config class of the holder.
+     */
+    public V getFrom(ConfigData config) {
+        try {
+            //noinspection unchecked
+            return (V) (Object) getter.invokeExact((Object) config);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new RuntimeException(throwable);
+        }
+    }
+    
+    @NotNull
+    public ConfigHolder<?> getHolder() {
+        return holder;
+    }
+    
+    @NotNull
+    public String getPath() {
+        return path;
+    }
+    
+    /**
+     * Returns the declared type of the field holding the value.
+     */
+    @NotNull
+    public Class<?> getType() {
+        return type;
+    }
+    
+    boolean isAssignableTo(Class<?> valueType) {
+        return Primitives.wrap(valueType).isAssignableFrom(Primitives.wrap(type));
+    }
+    
+    /**
+     * Reads a module through {@link PartitioningSerializer.GlobalData#getModule(Class)},
+     * which loads it first if it is read lazily.
+     */
+    private static MethodHandle moduleGetter(Class<?> moduleClass) {
+        try {
+            MethodHandle getModule = MethodHandles.publicLookup().findVirtual(PartitioningSerializer.GlobalData.class, "getModule",
+                    MethodType.methodType(ConfigData.class, Class.class));
+            return MethodHandles.insertArguments(getModule, 1, moduleClass)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private static Field[] resolve(Class<?> configClass, String path) {
+        String[] names = path.split("\\.");
+        Field[] chain = new Field[names.length];
+        Class<?> type = configClass;
+        for (int i = 0; i < names.length; i++) {
+            chain[i] = findField(type, names[i]);
+            if (chain[i] == null) {
+                throw new IllegalArgumentException(String.format("No field '%s' in %s for path '%s'", names[i], type, path));
+            }
+            type = chain[i].getType();
+        }
+        return chain;
+    }
+    
+    private static Field findField(Class<?> type, String name) {
+        for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ConfigKey[%s:%s]", holder.getConfigClass().getName(), path);
+    }
+}
@@ -22,14 +22,22 @@ package me.shedaniel.autoconfig;
 import me.shedaniel.autoconfig.annotation.Config;
 import me.shedaniel.autoconfig.event.ConfigSerializeEvent;
 import me.shedaniel.autoconfig.serializer.ConfigSerializer;
+import me.shedaniel.autoconfig.serializer.PartitioningSerializer;
+import me.shedaniel.autoconfig.util.Utils;
 import net.minecraft.world.InteractionResult;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @ApiStatus.Internal
 public class ConfigManager<T extends ConfigData> implements ConfigHolder<T> {
@@ -38,10 +46,24 @@ public class ConfigManager<T extends ConfigData> implements ConfigHolder<T> {
     private final Class<T> configClass;
     private final ConfigSerializer<T> serializer;
     
-    private final List<ConfigSerializeEvent.Save<T>> saveEvent = new ArrayList<>();
-    private final List<ConfigSerializeEvent.Load<T>> loadEvent = new ArrayList<>();
+    private final List<ConfigSerializeEvent.Save<T>> saveEvent = new CopyOnWriteArrayList<>();
+    private final List<ConfigSerializeEvent.Load<T>> loadEvent = new CopyOnWriteArrayList<>();
+    private final FieldChangeTracker<T> fieldChanges = new FieldChangeTracker<>();
+    private final Map<String, ConfigKey<?>> keys = new ConcurrentHashMap<>();
     
-    private T config;
+    private final Object saveLock = new Object();
+    private final Object writeLock = new Object();
+    private ConfigSaveScheduler.PendingSave pendingSave;
+    private T pendingConfig;
+    private long pendingSequence;
+    // Every save takes a sequence number before it reads the config, a write is dropped if a later save was written first
+    private long saveSequence;
+    private long writtenSequence;
+    private volatile long saveDebounce = 0;
+    
+    private final AtomicReference<Snapshot<T>> snapshot = new AtomicReference<>(new Snapshot<>(null, 0));
+    private volatile boolean snapshotMode = false;
+    private volatile T defaults;
     
     ConfigManager(Config definition, Class<T> configClass, ConfigSerializer<T> serializer) {
         logger = LogManager.getLogger();
@@ -69,20 +91,129 @@ public class ConfigManager<T extends ConfigData> implements ConfigHolder<T> {
         return serializer;
     }
     
+    /**
+     * Returns the defaults created by the serializer, which are only created once and shared by everything
+     * reading default values. They must not be modified or handed out, callers copy them or use {@link #createDefault()}.
+     */
+    public T getDefaults() {
+        T defaults = this.defaults;
+        if (defaults == null) {
+            // Threads racing here create equal prototypes, keeping either is fine
+            this.defaults = defaults = serializer.createDefault();
+        }
+        return defaults;
+    }
+    
+    /**
+     * Returns a mutable copy of {@link #getDefaults()}, which keeps the classes of its collections and maps.
+     * Defaults holding values that cannot be copied are created by the serializer again.
+     */
+    public T createDefault() {
+        try {
+            return Utils.deepCopy(getDefaults());
+        } catch (IllegalArgumentException e) {
+            return serializer.createDefault();
+        }
+    }
+    
     @Override
     public void save() {
+        if (!fireSaveEvent()) {
+            return;
+        }
+        try {
+            write(getConfig(), nextSaveSequence());
+        } catch (ConfigSerializer.SerializationException e) {
+            logger.error("Failed to save config '{}'", configClass, e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<Void> saveAsync() {
+        if (!fireSaveEvent()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // Copied on the calling thread, which may keep modifying the config while it is written
+        T config;
+        try {
+            config = snapshotMode ? getConfig() : Utils.deepCopy(getConfig());
+        } catch (IllegalArgumentException e) {
+            // Holds values that cannot be copied, written on the calling thread like save() instead
+            try {
+                write(getConfig(), nextSaveSequence());
+                return CompletableFuture.completedFuture(null);
+            } catch (ConfigSerializer.SerializationException serializationException) {
+                logger.error("Failed to save config '{}'", configClass, serializationException);
+                return CompletableFuture.failedFuture(serializationException);
+            }
+        }
+        synchronized (saveLock) {
+            pendingConfig = config;
+            pendingSequence = ++saveSequence;
+            if (pendingSave != null) {
+                // Not started yet, it will write this copy instead
+                pendingSave.postpone(saveDebounce);
+                return pendingSave.future;
+            }
+            pendingSave = ConfigSaveScheduler.schedule(this::writeScheduled, saveDebounce);
+            return pendingSave.future;
+        }
+    }
+    
+    @Override
+    public void setSaveDebounce(long debounce) {
+        this.saveDebounce = debounce;
+    }
+    
+    private boolean fireSaveEvent() {
         for (ConfigSerializeEvent.Save<T> save : saveEvent) {
-            InteractionResult result = save.onSave(this, config);
+            InteractionResult result = save.onSave(this, getConfig());
             if (result == InteractionResult.FAIL) {
-                return;
+                return false;
             } else if (result != InteractionResult.PASS) {
                 break;
             }
         }
+        return true;
+    }
+    
+    private long nextSaveSequence() {
+        synchronized (saveLock) {
+            return ++saveSequence;
+        }
+    }
+    
+    private void writeScheduled(ConfigSaveScheduler.PendingSave save) {
+        T config;
+        long sequence;
+        synchronized (saveLock) {
+            config = pendingConfig;
+            sequence = pendingSequence;
+            if (pendingSave == save) {
+                pendingSave = null;
+                pendingConfig = null;
+            }
+        }
+        if (config == null) {
+            return;
+        }
         try {
-            serializer.serialize(config);
+            write(config, sequence);
         } catch (ConfigSerializer.SerializationException e) {
             logger.error("Failed to save config '{}'", configClass, e);
+            throw new CompletionException(e);
+        }
+    }
+    
+    private void write(T config, long sequence) throws ConfigSerializer.SerializationException {
+        synchronized (writeLock) {
+            if (sequence < writtenSequence) {
+                // A save started later already wrote newer contents
+                return;
+            }
+            serializer.serialize(config);
+            writtenSequence = sequence;
+            fieldChanges.update(this, config);
         }
     }
     
@@ -94,27 +225,72 @@ public class ConfigManager<T extends ConfigData> implements ConfigHolder<T> {
             for (ConfigSerializeEvent.Load<T> load : loadEvent) {
                 InteractionResult result = load.onLoad(this, deserialized);
                 if (result == InteractionResult.FAIL) {
-                    config = serializer.createDefault();
-                    config.validatePostLoad();
+                    T defaults = createDefault();
+                    defaults.validatePostLoad();
+                    publish(defaults);
+                    fieldChanges.update(this, defaults);
                     return false;
                 } else if (result != InteractionResult.PASS) {
                     break;
                 }
             }
             
-            config = deserialized;
-            config.validatePostLoad();
+            deserialized.validatePostLoad();
+            publish(deserialized);
+            fieldChanges.update(this, deserialized);
             return true;
         } catch (ConfigSerializer.SerializationException | ConfigData.ValidationException e) {
             logger.error("Failed to load config '{}', using default!", configClass, e);
             resetToDefault();
+            fieldChanges.update(this, getConfig());
             return false;
         }
     }
     
     @Override
     public T getConfig() {
-        return config;
+        return snapshot.get().config();
+    }
+    
+    @Override
+    public long getVersion() {
+        return snapshot.get().version();
+    }
+    
+    @Override
+    public void setSnapshotMode(boolean snapshotMode) {
+        this.snapshotMode = snapshotMode;
+    }
+    
+    @Override
+    public boolean isSnapshotMode() {
+        return snapshotMode;
+    }
+    
+    @Override
+    public T edit(Consumer<T> editor) {
+        if (!snapshotMode) {
+            T config = getConfig();
+            editor.accept(config);
+            publish(config);
+            return config;
+        }
+        while (true) {
+            Snapshot<T> current = snapshot.get();
+            // Copies do not carry the readers of pending modules
+            if (current.config() instanceof PartitioningSerializer.GlobalData) {
+                ((PartitioningSerializer.GlobalData) current.config()).loadModules();
+            }
+            T config = Utils.deepCopy(current.config());
+            editor.accept(config);
+            if (snapshot.compareAndSet(current, new Snapshot<>(config, current.version() + 1))) {
+                return config;
+            }
+        }
+    }
+    
+    private void publish(T config) {
+        snapshot.updateAndGet(current -> new Snapshot<>(config, current.version() + 1));
     }
     
     @Override
@@ -122,23 +298,42 @@ public class ConfigManager<T extends ConfigData> implements ConfigHolder<T> {
         this.loadEvent.add(load);
     }
 
+    @Override
+    public <V> void registerFieldListener(String path, ConfigSerializeEvent.FieldChange<T, V> listener) {
+        fieldChanges.register(this, path, listener);
+    }
+    
+    @Override
+    public <V> ConfigKey<V> getKey(String path, Class<V> type) {
+        ConfigKey<?> key = keys.computeIfAbsent(path, p -> new ConfigKey<>(this, p));
+        if (!key.isAssignableTo(type)) {
+            throw new IllegalArgumentException(String.format("Field at path '%s' of %s is of %s, not %s", path, configClass, key.getType(), type));
+        }
+        //noinspection unchecked
+        return (ConfigKey<V>) key;
+    }
+    
     @Override
     public void resetToDefault() {
-        config = serializer.createDefault();
+        T defaults = createDefault();
         try {
-            config.validatePostLoad();
+            defaults.validatePostLoad();
         } catch (ConfigData.ValidationException v) {
             throw new RuntimeException("result of createDefault() was invalid!", v);
         }
+        publish(defaults);
     }
 
     @Override
     public void setConfig(T config) {
-        this.config = config;
+        publish(config);
     }
 
     @Override
     public void registerSaveListener(ConfigSerializeEvent.Save<T> save) {
         this.saveEvent.add(save);
     }
+    
+    private record Snapshot<T>(T config, long version) {
+    }
 }
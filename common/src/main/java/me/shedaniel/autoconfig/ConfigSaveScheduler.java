@@ -0,0 +1,129 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs the asynchronous saves of {@link ConfigManager}s off the calling thread.
+ * Saves that are still pending when the game exits are written by a shutdown hook, which also waits for
+ * the saves already running.
+ */
+@ApiStatus.Internal
+final class ConfigSaveScheduler {
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("Cloth Config Saver #%d")
+            .setDaemon(true)
+            .build());
+    // Saves which have not finished yet, including the running ones
+    private static final Set<PendingSave> PENDING = ConcurrentHashMap.newKeySet();
+    
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ConfigSaveScheduler::flush, "Cloth Config Save Flush"));
+    }
+    
+    private ConfigSaveScheduler() {
+    }
+    
+    static PendingSave schedule(Consumer<PendingSave> task, long debounce) {
+        PendingSave save = new PendingSave(task);
+        PENDING.add(save);
+        save.postpone(debounce);
+        save.submit();
+        return save;
+    }
+    
+    /**
+     * Writes all pending saves on the calling thread, and waits for the saves running on other threads.
+     */
+    static void flush() {
+        for (PendingSave save : PENDING) {
+            save.run();
+        }
+        for (PendingSave save : PENDING) {
+            try {
+                save.future.join();
+            } catch (CompletionException | CancellationException ignored) {
+                // Already logged by the save
+            }
+        }
+    }
+    
+    static final class PendingSave {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final Consumer<PendingSave> task;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile long deadline;
+        
+        private PendingSave(Consumer<PendingSave> task) {
+            this.task = task;
+        }
+        
+        /**
+         * Postpones this save until the debounce window has passed.
+         */
+        void postpone(long debounce) {
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounce);
+        }
+        
+        private void submit() {
+            long delay = deadline - System.nanoTime();
+            if (delay > 0) {
+                CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, EXECUTOR).execute(this::runDebounced);
+            } else {
+                EXECUTOR.execute(this::run);
+            }
+        }
+        
+        private void runDebounced() {
+            if (started.get()) {
+                return;
+            } else if (deadline - System.nanoTime() > 0) {
+                submit();
+            } else {
+                run();
+            }
+        }
+        
+        private void run() {
+            if (!started.compareAndSet(false, true)) return;
+            try {
+                task.accept(this);
+                future.complete(null);
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            } finally {
+                PENDING.remove(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig;
+
+import me.shedaniel.autoconfig.util.ConfigFiles;
+import me.shedaniel.autoconfig.util.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reloads configs whose files are edited outside the game, using a single thread watching the config folder.
+ */
+@ApiStatus.Internal
+final class ConfigWatcher implements Runnable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    /**
+     * Time to wait for further changes, editors tend to write a file several times when saving it.
+     */
+    private static final long DEBOUNCE = 250;
+    private static ConfigWatcher instance;
+    
+    private final Path configFolder;
+    private final WatchService watchService;
+    private final Executor executor;
+    private final List<ConfigManager<?>> managers = new CopyOnWriteArrayList<>();
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    /**
+     * The folders leading to the files of the configs, watched as soon as they exist.
+     */
+    private final Set<Path> wanted = ConcurrentHashMap.newKeySet();
+    
+    private ConfigWatcher(Path configFolder, Executor executor) throws IOException {
+        this.configFolder = configFolder.toAbsolutePath().normalize();
+        this.watchService = configFolder.getFileSystem().newWatchService();
+        this.executor = executor;
+        register(this.configFolder);
+    }
+    
+    static synchronized void start(Executor executor, Iterable<ConfigHolder<?>> holders) throws IOException {
+        if (instance != null) {
+            throw new IllegalStateException("Hot reload is already enabled");
+        }
+        instance = new ConfigWatcher(Utils.getConfigFolder(), executor);
+        for (ConfigHolder<?> holder : holders) {
+            instance.add((ConfigManager<?>) holder);
+        }
+        Thread thread = new Thread(instance, "Cloth Config Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    static synchronized void watch(ConfigManager<?> manager) {
+        if (instance != null) {
+            instance.add(manager);
+        }
+    }
+    
+    private void add(ConfigManager<?> manager) {
+        if (!managers.addIfAbsent(manager)) return;
+        // Partitioned configs keep their modules in a folder named after the config
+        Path path = configFolder.resolve(manager.getDefinition().name()).normalize();
+        for (Path directory = path; directory != null && directory.startsWith(configFolder) && !directory.equals(configFolder); directory = directory.getParent()) {
+            wanted.add(directory);
+        }
+        for (Path directory : wanted) {
+            register(directory);
+        }
+    }
+    
+    private void register(Path directory) {
+        if (!Files.isDirectory(directory) || directories.containsValue(directory)) return;
+        try {
+            WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            directories.put(key, directory);
+        } catch (IOException e) {
+            LOGGER.error("Failed to watch config folder '{}'", directory, e);
+        }
+    }
+    
+    /**
+     * Watches a folder created after hot reload was enabled, along with the wanted folders inside it,
+     * and treats the files already written into them as changed.
+     */
+    private void registerCreated(Path directory, Set<Path> changed) {
+        register(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                changed.add(path);
+                if (wanted.contains(path)) {
+                    registerCreated(path, changed);
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.error("Failed to list config folder '{}'", directory, e);
+        }
+    }
+    
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = poll(watchService.take(), changed);
+                WatchKey key;
+                while ((key = watchService.poll(DEBOUNCE, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= poll(key, changed);
+                }
+                reload(changed, overflow);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            LOGGER.debug("Stopped watching the config folder", e);
+        }
+    }
+    
+    private boolean poll(WatchKey key, Set<Path> changed) {
+        Path directory = directories.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else if (directory != null) {
+                Path path = directory.resolve((Path) event.context());
+                changed.add(path);
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && wanted.contains(path)) {
+                    registerCreated(path, changed);
+                }
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return overflow;
+    }
+    
+    private void reload(Set<Path> changed, boolean overflow) {
+        for (ConfigManager<?> manager : managers) {
+            String name = manager.getDefinition().name();
+            boolean reload = overflow;
+            for (Path path : changed) {
+                if (reload) break;
+                // The files written by the library itself still match their fingerprint
+                reload = ConfigFiles.isConfigFile(configFolder, path, name) && !ConfigFiles.isUnchanged(path);
+            }
+            if (reload) {
+                executor.execute(() -> {
+                    LOGGER.info("Reloading config '{}' after it was edited", name);
+                    manager.load();
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig;
+
+import me.shedaniel.autoconfig.event.ConfigSerializeEvent;
+import me.shedaniel.autoconfig.util.Utils;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Diffs the fields listened to by {@link ConfigSerializeEvent.FieldChange} listeners against their values
+ * when the config was last loaded or saved.
+ * <p>
+ * The values are deep copied, so that nested objects and collections of mutable objects modified in place
+ * are detected as changed. Values {@link Utils#deepCopy(Object)} cannot copy only have their outer
+ * collection or array copied, changes made inside their elements are not detected.
+ */
+@ApiStatus.Internal
+final class FieldChangeTracker<T extends ConfigData> {
+    private final Map<String, WatchedField<T>> fields = new LinkedHashMap<>();
+    
+    synchronized void register(ConfigHolder<T> holder, String path, ConfigSerializeEvent.FieldChange<T, ?> listener) {
+        WatchedField<T> field = fields.get(path);
+        if (field == null) {
+            field = new WatchedField<>(holder.getKey(path, Object.class));
+            field.value = field.snapshot(holder.getConfig());
+            fields.put(path, field);
+        }
+        field.listeners.add(listener);
+    }
+    
+    /**
+     * Calls the listeners of the fields whose values differ from the last time this was called.
+     */
+    synchronized void update(ConfigHolder<T> holder, T config) {
+        for (WatchedField<T> field : fields.values()) {
+            Object oldValue = field.value;
+            Object newValue = field.snapshot(config);
+            if (!Utils.deepEquals(oldValue, newValue)) {
+                field.value = newValue;
+                for (ConfigSerializeEvent.FieldChange<T, ?> listener : field.listeners) {
+                    //noinspection unchecked
+                    ((ConfigSerializeEvent.FieldChange<T, Object>) listener).onChange(holder, oldValue, newValue);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Copies the value, as the config holds on to and mutates the same instances.
+     */
+    private static Object copy(Object value) {
+        try {
+            return Utils.deepCopy(value);
+        } catch (IllegalArgumentException e) {
+            return shallowCopy(value);
+        }
+    }
+    
+    private static Object shallowCopy(Object value) {
+        if (value instanceof Set<?> set) {
+            return new LinkedHashSet<>(set);
+        } else if (value instanceof Collection<?> collection) {
+            return new ArrayList<>(collection);
+        } else if (value instanceof Map<?, ?> map) {
+            return new LinkedHashMap<>(map);
+        } else if (value != null && value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, copy, 0, length);
+            return copy;
+        }
+        return value;
+    }
+    
+    private static final class WatchedField<T extends ConfigData> {
+        private final ConfigKey<?> key;
+        private final List<ConfigSerializeEvent.FieldChange<T, ?>> listeners = new ArrayList<>();
+        private Object value;
+        
+        private WatchedField(ConfigKey<?> key) {
+            this.key = key;
+        }
+        
+        private Object snapshot(T config) {
+            return copy(key.getFrom(config));
+        }
+    }
+}
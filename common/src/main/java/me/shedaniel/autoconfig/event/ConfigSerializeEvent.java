@@ -63,4 +63,16 @@ public final class ConfigSerializeEvent {
          */
         InteractionResult onLoad(ConfigHolder<T> manager, T newData);
     }
+    
+    @FunctionalInterface
+    public interface FieldChange<T extends ConfigData, V> {
+        /**
+         * Callback that is called when the value of a field differs from its value when
+         * the config was last loaded or saved.
+         * This is called after the config manager loaded or saved its config values, on the thread doing so.
+         * <p>
+         * Collections, maps and arrays are compared by their contents, other values with {@link Object#equals(Object)}.
+         */
+        void onChange(ConfigHolder<T> manager, V oldValue, V newValue);
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig.gui;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.screens.Screen;
+import net.minecraft.network.chat.Component;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Placeholder shown while a config screen is being built, replaced by the config screen once it is ready.
+ */
+@Environment(EnvType.CLIENT)
+class ConfigLoadingScreen extends Screen {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Component LOADING = Component.translatable("text.cloth-config.loading");
+    
+    private final Screen parent;
+    private final CompletableFuture<Screen> future;
+    
+    ConfigLoadingScreen(Screen parent, Component title, CompletableFuture<Screen> future) {
+        super(title);
+        this.parent = parent;
+        this.future = future;
+        future.whenCompleteAsync((screen, throwable) -> {
+            Minecraft minecraft = Minecraft.getInstance();
+            // Closed or replaced in the meantime
+            if (minecraft.screen != this)
+                return;
+            if (throwable != null) {
+                LOGGER.error("Failed to build config screen", throwable);
+                minecraft.setScreen(parent);
+            } else {
+                minecraft.setScreen(screen);
+            }
+        }, Minecraft.getInstance());
+    }
+    
+    @Override
+    public void render(PoseStack matrices, int mouseX, int mouseY, float delta) {
+        renderBackground(matrices);
+        drawCenteredString(matrices, font, title, width / 2, height / 2 - 16, -1);
+        drawCenteredString(matrices, font, LOADING, width / 2, height / 2, 0xA0A0A0);
+        super.render(matrices, mouseX, mouseY, delta);
+    }
+    
+    @Override
+    public void onClose() {
+        future.cancel(false);
+        minecraft.setScreen(parent);
+    }
+}
@@ -24,28 +24,42 @@ import me.shedaniel.autoconfig.ConfigManager;
 import me.shedaniel.autoconfig.annotation.Config;
 import me.shedaniel.autoconfig.annotation.ConfigEntry;
 import me.shedaniel.autoconfig.gui.registry.api.GuiRegistryAccess;
+import me.shedaniel.autoconfig.serializer.PartitioningSerializer;
+import me.shedaniel.autoconfig.util.ConfigMetadata;
+import me.shedaniel.autoconfig.util.Utils;
+import me.shedaniel.clothconfig2.api.AbstractConfigListEntry;
 import me.shedaniel.clothconfig2.api.ConfigBuilder;
 import me.shedaniel.clothconfig2.api.ConfigCategory;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
-import static java.util.stream.Collectors.*;
+import static java.util.stream.Collectors.toMap;
 
 @Environment(EnvType.CLIENT)
 public class ConfigScreenProvider<T extends ConfigData> implements Supplier<Screen> {
     
     private static final ResourceLocation TRANSPARENT_BACKGROUND = new ResourceLocation(Config.Gui.Background.TRANSPARENT);
+    private static final Map<Class<?>, ScreenModel> MODELS = new ConcurrentHashMap<>();
+    private static final long BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
     
     private final ConfigManager<T> manager;
     private final GuiRegistryAccess registry;
@@ -87,22 +101,140 @@ public class ConfigScreenProvider<T extends ConfigData> implements Supplier<Scre
     
     @Override
     public Screen get() {
-        T config = manager.getConfig();
-        T defaults = manager.getSerializer().createDefault();
+        return build(prepare(getModel()), null);
+    }
+    
+    /**
+     * Builds the screen without blocking the client thread for long.
+     * <p>
+     * The screen model is built and the GUI providers of every field are resolved on a background thread.
+     * The config and its defaults are then prepared on the client thread, as lazily read modules are loaded
+     * into the live config, and the entries of the first category are built there in batches, yielding to
+     * the render loop between them, the other categories are built lazily.
+     * The returned future completes on the client thread when the screen is built, cancelling it stops the build.
+     */
+    public CompletableFuture<Screen> getAsync() {
+        CompletableFuture<Screen> result = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(() -> {
+            ScreenModel model = getModel();
+            for (CategoryModel category : model.categories()) {
+                for (OptionModel option : category.options()) {
+                    registry.prepare(option.field());
+                }
+            }
+            return model;
+        }, Util.backgroundExecutor()).whenComplete((model, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+                return;
+            }
+            Minecraft.getInstance().execute(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    new BatchedBuild(prepare(model), result).schedule();
+                } catch (Throwable buildThrowable) {
+                    result.completeExceptionally(buildThrowable);
+                }
+            });
+        });
+        return result;
+    }
+    
+    /**
+     * Returns a loading screen which is replaced by the config screen once {@link #getAsync()} completes.
+     */
+    public Screen getLoadingScreen() {
+        Component title = Component.translatable(String.format("%s.title", i18nFunction.apply(manager)));
+        return new ConfigLoadingScreen(parent, title, getAsync());
+    }
+    
+    /**
+     * Must run on the client thread, which owns the live config.
+     */
+    private PreparedScreen<T> prepare(ScreenModel model) {
+        // Modules are loaded before copying, as copies do not carry the readers of pending modules
+        if (manager.getConfig() instanceof PartitioningSerializer.GlobalData) {
+            ((PartitioningSerializer.GlobalData) manager.getConfig()).loadModules();
+        }
+        // Snapshots must not be modified, the screen edits a copy which replaces the snapshot when saved
+        T config = manager.isSnapshotMode() ? Utils.deepCopy(manager.getConfig()) : manager.getConfig();
+        // The prototype is shared by every screen of this config, entries get a copy they may hold on to
+        return new PreparedScreen<>(model, config, manager.createDefault());
+    }
+    
+    /**
+     * @param firstEntries the entries of the first category if they are already built
+     */
+    private Screen build(PreparedScreen<T> prepared, @Nullable List<AbstractConfigListEntry> firstEntries) {
+        ScreenModel model = prepared.model();
+        T config = prepared.config();
+        T defaults = prepared.defaults();
         
-        String i18n = i18nFunction.apply(manager);
+        Runnable savingRunnable = manager.isSnapshotMode() ? () -> {
+            manager.setConfig(Utils.deepCopy(config));
+            manager.save();
+        } : manager::save;
+        ConfigBuilder builder = ConfigBuilder.create().setParentScreen(parent).setTitle(Component.translatable(model.titleKey())).setSavingRunnable(savingRunnable);
         
-        ConfigBuilder builder = ConfigBuilder.create().setParentScreen(parent).setTitle(Component.translatable(String.format("%s.title", i18n))).setSavingRunnable(manager::save);
+        if (model.transparentBackground())
+            builder.transparentBackground();
+        else if (model.hasBackground())
+            builder.setDefaultBackgroundTexture(model.background());
         
+        for (CategoryModel category : model.categories()) {
+            ConfigCategory configCategory = builder.getOrCreateCategory(Component.translatable(category.key()));
+            if (category.background() != null) {
+                configCategory.setCategoryBackground(category.background());
+            }
+            if (firstEntries != null) {
+                List<AbstractConfigListEntry> entries = firstEntries;
+                configCategory.addLazyEntries(() -> entries);
+                firstEntries = null;
+                continue;
+            }
+            // Built when the tab is first selected, not for every category up front
+            configCategory.addLazyEntries(() -> {
+                List<AbstractConfigListEntry> entries = new ArrayList<>();
+                for (OptionModel option : category.options()) {
+                    entries.addAll(getEntries(option, prepared));
+                }
+                return entries;
+            });
+        }
+        
+        return buildFunction.apply(builder);
+    }
+    
+    private List<AbstractConfigListEntry> getEntries(OptionModel option, PreparedScreen<T> prepared) {
+        return registry.getAndTransform(option.i18n(), option.field(), prepared.config(), prepared.defaults(), registry);
+    }
+    
+    /**
+     * Returns the cached screen model of the config class,
+     * building it again if the i18n functions differ from the ones it was built with.
+     */
+    private ScreenModel getModel() {
         Class<T> configClass = manager.getConfigClass();
+        ScreenModel model = MODELS.get(configClass);
+        if (model == null || model.i18nFunction() != i18nFunction || model.optionFunction() != optionFunction
+            || model.categoryFunction() != categoryFunction) {
+            model = buildModel(configClass);
+            MODELS.put(configClass, model);
+        }
+        return model;
+    }
+    
+    private ScreenModel buildModel(Class<T> configClass) {
+        String i18n = i18nFunction.apply(manager);
+        ConfigMetadata<T> metadata = ConfigMetadata.of(configClass);
         
-        if (configClass.isAnnotationPresent(Config.Gui.Background.class)) {
+        boolean hasBackground = configClass.isAnnotationPresent(Config.Gui.Background.class);
+        ResourceLocation background = null;
+        if (hasBackground) {
             String bg = configClass.getAnnotation(Config.Gui.Background.class).value();
-            ResourceLocation bgId = ResourceLocation.tryParse(bg);
-            if (TRANSPARENT_BACKGROUND.equals(bgId))
-                builder.transparentBackground();
-            else
-                builder.setDefaultBackgroundTexture(bgId);
+            background = ResourceLocation.tryParse(bg);
         }
         
         Map<String, ResourceLocation> categoryBackgrounds =
@@ -114,48 +246,98 @@ public class ConfigScreenProvider<T extends ConfigData> implements Supplier<Scre
                                 )
                         );
         
-        Arrays.stream(configClass.getDeclaredFields())
-                .collect(
-                        groupingBy(
-                                field -> getOrCreateCategoryForField(field, builder, categoryBackgrounds, i18n),
-                                LinkedHashMap::new,
-                                toList()
-                        )
-                )
-                .forEach(
-                        (key, value) -> value.forEach(
-                                field -> {
-                                    String optionI13n = optionFunction.apply(i18n, field);
-                                    registry.getAndTransform(optionI13n, field, config, defaults, registry)
-                                            .forEach(key::addEntry);
-                                }
-                        )
-                );
+        Map<String, CategoryModel> categories = new LinkedHashMap<>();
+        for (Field field : configClass.getDeclaredFields()) {
+            String categoryName = getCategoryName(field, metadata);
+            String categoryKey = categoryFunction.apply(i18n, categoryName);
+            categories.computeIfAbsent(categoryKey, key -> new CategoryModel(key, categoryBackgrounds.get(categoryName), new ArrayList<>()))
+                    .options().add(new OptionModel(field, optionFunction.apply(i18n, field)));
+        }
         
-        return buildFunction.apply(builder);
+        return new ScreenModel(
+                i18nFunction, optionFunction, categoryFunction,
+                String.format("%s.title", i18n),
+                hasBackground && TRANSPARENT_BACKGROUND.equals(background),
+                hasBackground,
+                background,
+                List.copyOf(categories.values())
+        );
     }
     
-    private ConfigCategory getOrCreateCategoryForField(
-            Field field,
-            ConfigBuilder screenBuilder,
-            Map<String, ResourceLocation> backgroundMap,
-            String baseI13n
-    ) {
-        String categoryName = "default";
+    private static String getCategoryName(Field field, @Nullable ConfigMetadata<?> metadata) {
+        ConfigMetadata.Entry entry = metadata == null ? null : metadata.getEntry(field.getName());
         
-        if (field.isAnnotationPresent(ConfigEntry.Category.class))
-            categoryName = field.getAnnotation(ConfigEntry.Category.class).value();
+        if (entry != null)
+            return entry.category();
+        else if (field.isAnnotationPresent(ConfigEntry.Category.class))
+            return field.getAnnotation(ConfigEntry.Category.class).value();
         
-        Component categoryKey = Component.translatable(categoryFunction.apply(baseI13n, categoryName));
+        return "default";
+    }
+    
+    /**
+     * Builds the entries of the first category on the client thread, a time-boxed batch at a time.
+     */
+    private final class BatchedBuild {
+        private final PreparedScreen<T> prepared;
+        private final CompletableFuture<Screen> result;
+        private final List<OptionModel> options;
+        private final List<AbstractConfigListEntry> entries = new ArrayList<>();
+        private int next;
         
-        if (!screenBuilder.hasCategory(categoryKey)) {
-            ConfigCategory category = screenBuilder.getOrCreateCategory(categoryKey);
-            if (backgroundMap.containsKey(categoryName)) {
-                category.setCategoryBackground(backgroundMap.get(categoryName));
-            }
-            return category;
+        private BatchedBuild(PreparedScreen<T> prepared, CompletableFuture<Screen> result) {
+            this.prepared = prepared;
+            this.result = result;
+            List<CategoryModel> categories = prepared.model().categories();
+            this.options = categories.isEmpty() ? List.of() : categories.get(0).options();
         }
         
-        return screenBuilder.getOrCreateCategory(categoryKey);
+        private void schedule() {
+            // Delayed so that the task is not run by the same pass over the client task queue
+            CompletableFuture.delayedExecutor(1, TimeUnit.MILLISECONDS, Minecraft.getInstance()).execute(this::run);
+        }
+        
+        private void run() {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                long deadline = System.nanoTime() + BATCH_NANOS;
+                while (next < options.size() && System.nanoTime() < deadline) {
+                    entries.addAll(getEntries(options.get(next++), prepared));
+                }
+                if (next < options.size()) {
+                    schedule();
+                } else {
+                    result.complete(build(prepared, entries));
+                }
+            } catch (Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+        }
+    }
+    
+    /**
+     * Everything about the screen of a config class that does not depend on the current config values.
+     */
+    private record ScreenModel(
+            Function<?, String> i18nFunction,
+            BiFunction<String, Field, String> optionFunction,
+            BiFunction<String, String, String> categoryFunction,
+            String titleKey,
+            boolean transparentBackground,
+            boolean hasBackground,
+            @Nullable ResourceLocation background,
+            List<CategoryModel> categories
+    ) {
+    }
+    
+    private record PreparedScreen<T extends ConfigData>(ScreenModel model, T config, T defaults) {
+    }
+    
+    private record CategoryModel(String key, @Nullable ResourceLocation background, List<OptionModel> options) {
+    }
+    
+    private record OptionModel(Field field, String i18n) {
     }
 }
@@ -66,4 +66,11 @@ public class ComposedGuiRegistryAccess implements GuiRegistryAccess {
         }
         return guis;
     }
+    
+    @Override
+    public void prepare(Field field) {
+        for (GuiRegistryAccess child : children) {
+            child.prepare(field);
+        }
+    }
 }
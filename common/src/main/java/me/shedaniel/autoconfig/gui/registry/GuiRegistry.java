@@ -29,16 +29,24 @@ import net.fabricmc.api.Environment;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+/**
+ * Registry of GUI providers and transformers, matched against config fields by their predicates.
+ * <p>
+ * The provider and transformers matching a field are resolved once and cached until the next registration,
+ * so predicates are expected to depend only on the field. Providers registered for types are dispatched
+ * through a table keyed by the field type, after the annotation and predicate providers.
+ */
 @Environment(EnvType.CLIENT)
 public final class GuiRegistry implements GuiRegistryAccess {
     
     private Map<Priority, List<ProviderEntry>> providers = new HashMap<>();
+    private Map<Class<?>, GuiProvider> typeProviders = new HashMap<>();
     private List<TransformerEntry> transformers = new ArrayList<>();
+    private volatile Map<Field, Resolution> resolutions = new ConcurrentHashMap<>();
     
     public GuiRegistry() {
         for (Priority priority : Priority.values()) {
@@ -46,14 +54,6 @@ public final class GuiRegistry implements GuiRegistryAccess {
         }
     }
     
-    private static <T> Optional<T> firstPresent(Stream<Supplier<Optional<T>>> optionals) {
-        return optionals
-                .map(Supplier::get)
-                .filter(Optional::isPresent)
-                .findFirst()
-                .orElse(Optional.empty());
-    }
-    
     @Override
     public List<AbstractConfigListEntry> get(
             String i18n,
@@ -62,16 +62,8 @@ public final class GuiRegistry implements GuiRegistryAccess {
             Object defaults,
             GuiRegistryAccess registry
     ) {
-        return firstPresent(
-                Arrays.stream(Priority.values())
-                        .map(priority ->
-                                (Supplier<Optional<ProviderEntry>>) () ->
-                                        providers.get(priority).stream()
-                                                .filter(entry -> entry.predicate.test(field))
-                                                .findFirst()
-                        )
-        )
-                .map(entry -> entry.provider.get(i18n, field, config, defaults, registry))
+        return resolve(field).provider
+                .map(provider -> provider.get(i18n, field, config, defaults, registry))
                 .orElse(null);
     }
     
@@ -84,26 +76,56 @@ public final class GuiRegistry implements GuiRegistryAccess {
             Object defaults,
             GuiRegistryAccess registry
     ) {
-        List<GuiTransformer> matchedTransformers = this.transformers.stream()
-                .filter(entry -> entry.predicate.test(field))
-                .map(entry -> entry.transformer)
-                .collect(Collectors.toList());
-        
-        for (GuiTransformer transformer : matchedTransformers) {
+        for (GuiTransformer transformer : resolve(field).transformers) {
             guis = transformer.transform(guis, i18n, field, config, defaults, registry);
         }
         
         return guis;
     }
     
-    private void registerProvider(Priority priority, GuiProvider provider, Predicate<Field> predicate) {
+    @Override
+    public void prepare(Field field) {
+        resolve(field);
+    }
+    
+    private Resolution resolve(Field field) {
+        return resolutions.computeIfAbsent(field, this::computeResolution);
+    }
+    
+    private synchronized Resolution computeResolution(Field field) {
+        Optional<GuiProvider> provider = findProvider(Priority.FIRST, field)
+                .or(() -> findProvider(Priority.NORMAL, field))
+                .or(() -> Optional.ofNullable(typeProviders.get(field.getType())));
+        List<GuiTransformer> matchedTransformers = this.transformers.stream()
+                .filter(entry -> entry.predicate.test(field))
+                .map(entry -> entry.transformer)
+                .collect(Collectors.toUnmodifiableList());
+        return new Resolution(provider, matchedTransformers);
+    }
+    
+    private Optional<GuiProvider> findProvider(Priority priority, Field field) {
+        return providers.get(priority).stream()
+                .filter(entry -> entry.predicate.test(field))
+                .map(entry -> entry.provider)
+                .findFirst();
+    }
+    
+    private synchronized void registerProvider(Priority priority, GuiProvider provider, Predicate<Field> predicate) {
         providers.computeIfAbsent(priority, p -> new ArrayList<>()).add(new ProviderEntry(predicate, provider));
+        invalidateResolutions();
+    }
+    
+    private void invalidateResolutions() {
+        // Replaced rather than cleared, resolutions still being computed land in the discarded map
+        resolutions = new ConcurrentHashMap<>();
     }
     
-    public final void registerTypeProvider(GuiProvider provider, Class... types) {
+    public final synchronized void registerTypeProvider(GuiProvider provider, Class... types) {
         for (Class type : types) {
-            registerProvider(Priority.LAST, provider, field -> type == field.getType());
+            // The first provider registered for a type wins, as it would when matching predicates in order
+            typeProviders.putIfAbsent(type, provider);
         }
+        invalidateResolutions();
     }
     
     public final void registerPredicateProvider(GuiProvider provider, Predicate<Field> predicate) {
@@ -129,8 +151,9 @@ public final class GuiRegistry implements GuiRegistryAccess {
     }
     
     @SuppressWarnings("WeakerAccess")
-    public void registerPredicateTransformer(GuiTransformer transformer, Predicate<Field> predicate) {
+    public synchronized void registerPredicateTransformer(GuiTransformer transformer, Predicate<Field> predicate) {
         transformers.add(new TransformerEntry(predicate, transformer));
+        invalidateResolutions();
     }
     
     @SafeVarargs
@@ -148,8 +171,7 @@ public final class GuiRegistry implements GuiRegistryAccess {
     
     private enum Priority {
         FIRST,
-        NORMAL,
-        LAST
+        NORMAL
     }
     
     private static class ProviderEntry {
@@ -162,6 +184,9 @@ public final class GuiRegistry implements GuiRegistryAccess {
         }
     }
     
+    private record Resolution(Optional<GuiProvider> provider, List<GuiTransformer> transformers) {
+    }
+    
     private static class TransformerEntry {
         final Predicate<Field> predicate;
         final GuiTransformer transformer;
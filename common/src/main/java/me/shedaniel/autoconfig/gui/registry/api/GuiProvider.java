@@ -29,6 +29,9 @@ import java.util.List;
 @FunctionalInterface
 @Environment(EnvType.CLIENT)
 public interface GuiProvider {
+    /**
+     * @param defaults the defaults of the config, owned by the screen being built
+     */
     List<AbstractConfigListEntry> get(
             String i18n,
             Field field,
@@ -37,4 +37,11 @@ public interface GuiRegistryAccess extends GuiProvider, GuiTransformer {
     ) {
         return transform(get(i18n, field, config, defaults, registry), i18n, field, config, defaults, registry);
     }
+    
+    /**
+     * Resolves what is needed to provide the entries of the field ahead of time, without building them.
+     * Called from a background thread before the screen is built.
+     */
+    default void prepare(Field field) {
+    }
 }
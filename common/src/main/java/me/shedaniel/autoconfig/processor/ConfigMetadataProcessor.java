@@ -0,0 +1,332 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a {@link me.shedaniel.autoconfig.util.ConfigMetadata} class for every
+ * {@link me.shedaniel.autoconfig.annotation.Config @Config} class, so that AutoConfig
+ * does not need reflection to construct it, access its fields or read its annotations.
+ * <p>
+ * Only plain Java is used here, the processor runs inside javac without Minecraft on the classpath.
+ * <p>
+ * The processor is not registered as a service, so it only runs when named with {@code -processor}.
+ *
+ * @see me.shedaniel.autoconfig.util.ConfigMetadata
+ */
+@SupportedAnnotationTypes(ConfigMetadataProcessor.CONFIG)
+public class ConfigMetadataProcessor extends AbstractProcessor {
+    static final String CONFIG = "me.shedaniel.autoconfig.annotation.Config";
+    private static final String METADATA = "me.shedaniel.autoconfig.util.ConfigMetadata";
+    private static final String ENTRY = METADATA + ".Entry";
+    private static final String KIND = METADATA + ".Kind";
+    private static final String CONFIG_ENTRY = "me.shedaniel.autoconfig.annotation.ConfigEntry";
+    private static final String CATEGORY = CONFIG_ENTRY + ".Category";
+    private static final String BOUNDED_DISCRETE = CONFIG_ENTRY + ".BoundedDiscrete";
+    private static final Map<String, String> FLAGS = Map.of(
+            CONFIG_ENTRY + ".Gui.Excluded", "EXCLUDED",
+            CONFIG_ENTRY + ".Gui.Tooltip", "TOOLTIP",
+            CONFIG_ENTRY + ".Gui.NoTooltip", "NO_TOOLTIP",
+            CONFIG_ENTRY + ".Gui.PrefixText", "PREFIX_TEXT",
+            CONFIG_ENTRY + ".Gui.TransitiveObject", "TRANSITIVE",
+            CONFIG_ENTRY + ".Gui.CollapsibleObject", "COLLAPSIBLE",
+            CONFIG_ENTRY + ".Gui.RequiresRestart", "REQUIRES_RESTART",
+            CONFIG_ENTRY + ".ColorPicker", "COLOR_PICKER",
+            BOUNDED_DISCRETE, "BOUNDED"
+    );
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+    
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement config = processingEnv.getElementUtils().getTypeElement(CONFIG);
+        if (config == null) {
+            return false;
+        }
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(config))) {
+            if (type.getKind() != ElementKind.CLASS || !isAccessible(type)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Skipping config metadata, the class is not accessible from its package", type);
+                continue;
+            }
+            try {
+                generate(type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Failed to generate config metadata: " + e, type);
+            }
+        }
+        return false;
+    }
+    
+    private void generate(TypeElement type) throws IOException {
+        Elements elements = processingEnv.getElementUtils();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_') + "_ConfigMetadata";
+        String configType = types().erasure(type.asType()).toString();
+        String configName = (String) annotationValues(type, CONFIG).get("name");
+        PackageElement packageElement = elements.getPackageOf(type);
+        List<VariableElement> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC)) continue;
+            if (!isAccessible(types().erasure(field.asType()), packageElement)) {
+                // Left out of the metadata, such fields are accessed through reflection
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Skipping config metadata of the field, its type is not accessible from the package", field);
+                continue;
+            }
+            fields.add(field);
+        }
+        
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? simpleName : packageName + "." + simpleName, type).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            out.println("public final class " + simpleName + " implements " + METADATA + "<" + configType + "> {");
+            out.println("    private static final java.util.List<" + ENTRY + "> ENTRIES = java.util.List.of(");
+            for (int i = 0; i < fields.size(); i++) {
+                out.println("            " + entry(configName, fields.get(i)) + (i + 1 < fields.size() ? "," : ""));
+            }
+            out.println("    );");
+            out.println();
+            out.println("    @Override");
+            out.println("    public Class<" + configType + "> getConfigClass() {");
+            out.println("        return " + configType + ".class;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public String getName() {");
+            out.println("        return " + processingEnv.getElementUtils().getConstantExpression(configName) + ";");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + configType + " create() {");
+            out.println("        return " + (isConstructible(type) ? "new " + configType + "()" : "null") + ";");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public java.util.List<" + ENTRY + "> getEntries() {");
+            out.println("        return ENTRIES;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public Object get(" + configType + " config, int index) {");
+            out.println("        switch (index) {");
+            for (int i = 0; i < fields.size(); i++) {
+                VariableElement field = fields.get(i);
+                if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+                    out.println("            case " + i + ": return config." + field.getSimpleName() + ";");
+                }
+            }
+            out.println("            default: throw new IllegalArgumentException(\"Field \" + index + \" is not readable\");");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public void set(" + configType + " config, int index, Object value) {");
+            out.println("        switch (index) {");
+            for (int i = 0; i < fields.size(); i++) {
+                VariableElement field = fields.get(i);
+                if (isWritable(field)) {
+                    out.println("            case " + i + ": config." + field.getSimpleName() + " = (" + boxedType(field.asType()) + ") value; return;");
+                }
+            }
+            out.println("            default: throw new IllegalArgumentException(\"Field \" + index + \" is not writable\");");
+            out.println("        }");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+    
+    private String entry(String configName, VariableElement field) {
+        Elements elements = processingEnv.getElementUtils();
+        String name = field.getSimpleName().toString();
+        String category = "default";
+        long min = 0, max = 0;
+        List<String> flags = new ArrayList<>();
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            flags.add("READABLE");
+        }
+        if (isWritable(field)) {
+            flags.add("WRITABLE");
+        }
+        for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+            String annotationName = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+            String flag = FLAGS.get(annotationName);
+            if (flag != null) {
+                flags.add(flag);
+            }
+            if (annotationName.equals(CATEGORY)) {
+                category = (String) annotationValues(field, CATEGORY).get("value");
+            } else if (annotationName.equals(BOUNDED_DISCRETE)) {
+                Map<String, Object> values = annotationValues(field, BOUNDED_DISCRETE);
+                min = (Long) values.get("min");
+                max = (Long) values.get("max");
+            }
+        }
+        return "new " + ENTRY + "("
+               + elements.getConstantExpression(name) + ", "
+               + types().erasure(field.asType()) + ".class, "
+               + KIND + "." + kind(field.asType()) + ", "
+               + elements.getConstantExpression(category) + ", "
+               + elements.getConstantExpression("text.autoconfig." + configName + ".option." + name) + ", "
+               + (flags.isEmpty() ? "0" : flags.stream().map(flag -> ENTRY + "." + flag).collect(Collectors.joining(" | "))) + ", "
+               + min + "L, " + max + "L)";
+    }
+    
+    /**
+     * Reads the values of an annotation on {@code element}, including defaults.
+     */
+    private Map<String, Object> annotationValues(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet().stream()
+                        .collect(Collectors.toMap(entry -> entry.getKey().getSimpleName().toString(), entry -> entry.getValue().getValue()));
+            }
+        }
+        return Map.of();
+    }
+    
+    private String kind(TypeMirror type) {
+        TypeMirror unboxed = type;
+        if (type.getKind() == TypeKind.DECLARED) {
+            try {
+                unboxed = types().unboxedType(type);
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        switch (unboxed.getKind()) {
+            case BOOLEAN:
+                return "BOOLEAN";
+            case INT:
+                return "INT";
+            case LONG:
+                return "LONG";
+            case FLOAT:
+                return "FLOAT";
+            case DOUBLE:
+                return "DOUBLE";
+            case ARRAY:
+                return "ARRAY";
+            case DECLARED:
+                break;
+            default:
+                return "OTHER";
+        }
+        Element element = types().asElement(type);
+        if (element.getKind() == ElementKind.ENUM) {
+            return "ENUM";
+        }
+        if (((TypeElement) element).getQualifiedName().contentEquals("java.lang.String")) {
+            return "STRING";
+        }
+        TypeElement list = processingEnv.getElementUtils().getTypeElement("java.util.List");
+        if (types().isAssignable(types().erasure(type), types().erasure(list.asType()))) {
+            return "LIST";
+        }
+        return "OBJECT";
+    }
+    
+    private String boxedType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return types().boxedClass(types().getPrimitiveType(type.getKind())).getQualifiedName().toString();
+        }
+        return types().erasure(type).toString();
+    }
+    
+    private static boolean isWritable(VariableElement field) {
+        return !field.getModifiers().contains(Modifier.PRIVATE) && !field.getModifiers().contains(Modifier.FINAL);
+    }
+    
+    /**
+     * Whether the generated class, in the same package, can refer to {@code type}.
+     */
+    private static boolean isAccessible(TypeElement type) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE) || element.getSimpleName().length() == 0) {
+                return false;
+            }
+            if (element.getEnclosingElement() instanceof TypeElement && !element.getModifiers().contains(Modifier.STATIC)
+                && element.getEnclosingElement().getKind() == ElementKind.CLASS) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Whether the generated class, in {@code packageElement}, can name the erased type of a field.
+     */
+    private boolean isAccessible(TypeMirror type, PackageElement packageElement) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return isAccessible(((ArrayType) type).getComponentType(), packageElement);
+        } else if (type.getKind() != TypeKind.DECLARED) {
+            return type.getKind().isPrimitive();
+        }
+        boolean samePackage = processingEnv.getElementUtils().getPackageOf(types().asElement(type)).equals(packageElement);
+        for (Element element = types().asElement(type); element instanceof TypeElement; element = element.getEnclosingElement()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || element.getSimpleName().length() == 0
+                || !samePackage && !modifiers.contains(Modifier.PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isConstructible(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        return ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE));
+    }
+    
+    private Types types() {
+        return processingEnv.getTypeUtils();
+    }
+}
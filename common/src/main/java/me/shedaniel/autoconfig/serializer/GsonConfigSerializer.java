@@ -24,11 +24,13 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
 import me.shedaniel.autoconfig.ConfigData;
 import me.shedaniel.autoconfig.annotation.Config;
+import me.shedaniel.autoconfig.util.ConfigFiles;
 import me.shedaniel.autoconfig.util.Utils;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -61,10 +63,7 @@ public class GsonConfigSerializer<T extends ConfigData> implements ConfigSeriali
     public void serialize(T config) throws SerializationException {
         Path configPath = getConfigPath();
         try {
-            Files.createDirectories(configPath.getParent());
-            BufferedWriter writer = Files.newBufferedWriter(configPath);
-            gson.toJson(config, writer);
-            writer.close();
+            ConfigFiles.write(configPath, gson.toJson(config).getBytes(StandardCharsets.UTF_8));
         } catch (IOException e) {
             throw new SerializationException(e);
         }
@@ -74,14 +73,16 @@ public class GsonConfigSerializer<T extends ConfigData> implements ConfigSeriali
     public T deserialize() throws SerializationException {
         Path configPath = getConfigPath();
         if (Files.exists(configPath)) {
-            try {
-                BufferedReader reader = Files.newBufferedReader(configPath);
-                T ret = gson.fromJson(reader, configClass);
-                reader.close();
-                return ret;
-            } catch (IOException | JsonParseException e) {
-                throw new SerializationException(e);
-            }
+            return ConfigFiles.read(configPath, stream -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                    T ret = gson.fromJson(reader, configClass);
+                    if (ret == null)
+                        throw new JsonParseException("Config file is empty");
+                    return ret;
+                } catch (IOException | JsonParseException e) {
+                    throw new SerializationException(e);
+                }
+            });
         } else {
             return createDefault();
         }
@@ -22,10 +22,11 @@ package me.shedaniel.autoconfig.serializer;
 import blue.endless.jankson.Jankson;
 import me.shedaniel.autoconfig.ConfigData;
 import me.shedaniel.autoconfig.annotation.Config;
+import me.shedaniel.autoconfig.util.ConfigFiles;
 import me.shedaniel.autoconfig.util.Utils;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -57,10 +58,7 @@ public class JanksonConfigSerializer<T extends ConfigData> implements ConfigSeri
     public void serialize(T config) throws SerializationException {
         Path configPath = getConfigPath();
         try {
-            Files.createDirectories(configPath.getParent());
-            BufferedWriter writer = Files.newBufferedWriter(configPath);
-            writer.write(jankson.toJson(config).toJson(true, true));
-            writer.close();
+            ConfigFiles.write(configPath, jankson.toJson(config).toJson(true, true).getBytes(StandardCharsets.UTF_8));
         } catch (IOException e) {
             throw new SerializationException(e);
         }
@@ -70,11 +68,13 @@ public class JanksonConfigSerializer<T extends ConfigData> implements ConfigSeri
     public T deserialize() throws SerializationException {
         Path configPath = getConfigPath();
         if (Files.exists(configPath)) {
-            try {
-                return jankson.fromJson(jankson.load(getConfigPath().toFile()), configClass);
-            } catch (Throwable e) {
-                throw new SerializationException(e);
-            }
+            return ConfigFiles.read(configPath, stream -> {
+                try {
+                    return jankson.fromJson(jankson.load(stream), configClass);
+                } catch (Throwable e) {
+                    throw new SerializationException(e);
+                }
+            });
         } else {
             return createDefault();
         }
@@ -0,0 +1,372 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig.serializer;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import me.shedaniel.autoconfig.ConfigData;
+import me.shedaniel.autoconfig.annotation.Config;
+import me.shedaniel.autoconfig.util.BinaryCodec;
+import me.shedaniel.autoconfig.util.ConfigFiles;
+import me.shedaniel.autoconfig.util.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * This serializer wraps another serializer and appends the fields changed since the last save to a journal
+ * next to the config, instead of writing the whole config every time.
+ * <p>
+ * Once the journal grows past a threshold, the config is written with the wrapped serializer in the background
+ * and the journal is cleared. When deserializing, the changes in the journal are applied on top of the config
+ * read by the wrapped serializer. The first save after that writes the whole config with the wrapped serializer,
+ * which creates missing files, adds new fields and clears the journal, while {@link ConfigFiles#write} leaves
+ * files holding the same contents untouched.
+ * <p>
+ * The journal starts with a hash of the config files it applies to, and is discarded when they no longer match,
+ * such as after they were edited or replaced by hand.
+ */
+public final class JournalingSerializer<T extends ConfigData> implements ConfigSerializer<T> {
+    private static final Logger LOGGER = LogManager.getLogger();
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64 * 1024;
+    private static final int MAGIC = 0x434A524E;
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+                for (Field field : cls.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+    
+    private Config definition;
+    private Class<T> configClass;
+    private ConfigSerializer<T> serializer;
+    private final long compactionThreshold;
+    private final Object journalLock = new Object();
+    private final Object serializerLock = new Object();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    /**
+     * Copy of the config as it is persisted by the wrapped serializer and the journal together,
+     * {@code null} until the config is first written.
+     */
+    private T persisted;
+    
+    private JournalingSerializer(Config definition, Class<T> configClass, ConfigSerializer<T> serializer, long compactionThreshold) {
+        this.definition = definition;
+        this.configClass = configClass;
+        this.serializer = serializer;
+        this.compactionThreshold = compactionThreshold;
+    }
+    
+    public static <T extends ConfigData> ConfigSerializer.Factory<T> wrap(ConfigSerializer.Factory<T> inner) {
+        return wrap(inner, DEFAULT_COMPACTION_THRESHOLD);
+    }
+    
+    /**
+     * @param compactionThreshold the size in bytes past which the journal is compacted into the config
+     */
+    public static <T extends ConfigData> ConfigSerializer.Factory<T> wrap(ConfigSerializer.Factory<T> inner, long compactionThreshold) {
+        return (definition, configClass) -> new JournalingSerializer<>(definition, configClass, inner.create(definition, configClass), compactionThreshold);
+    }
+    
+    private Path getJournalPath() {
+        return Utils.getConfigFolder().resolve(definition.name() + ".journal");
+    }
+    
+    @Override
+    public void serialize(T config) throws SerializationException {
+        synchronized (journalLock) {
+            if (persisted == null) {
+                writeFully(config);
+                return;
+            }
+            List<String> paths = new ArrayList<>();
+            List<Object> values = new ArrayList<>();
+            diff("", persisted, config, paths, values);
+            if (paths.isEmpty()) {
+                return;
+            }
+            try {
+                append(encodeRecord(paths, values));
+            } catch (UnsupportedOperationException e) {
+                // Values the journal cannot encode are written with the wrapped serializer
+                writeFully(config);
+                return;
+            } catch (IOException e) {
+                throw new SerializationException(e);
+            }
+            persisted = Utils.deepCopy(config);
+        }
+        scheduleCompaction();
+    }
+    
+    @Override
+    public T deserialize() throws SerializationException {
+        T ret;
+        synchronized (serializerLock) {
+            ret = serializer.deserialize();
+        }
+        synchronized (journalLock) {
+            replay(ret);
+            // The files may be missing, lack new fields or be followed by a broken record, so the next save writes them
+            persisted = null;
+        }
+        return ret;
+    }
+    
+    @Override
+    public T createDefault() {
+        return serializer.createDefault();
+    }
+    
+    private void writeFully(T config) throws SerializationException {
+        synchronized (serializerLock) {
+            serializer.serialize(config);
+        }
+        try {
+            Files.deleteIfExists(getJournalPath());
+        } catch (IOException e) {
+            throw new SerializationException(e);
+        }
+        persisted = Utils.deepCopy(config);
+    }
+    
+    /**
+     * Collects the paths of the fields which differ, descending into config objects held by both.
+     */
+    private static void diff(String prefix, Object old, Object current, List<String> paths, List<Object> values) {
+        for (Field field : FIELDS.get(current.getClass())) {
+            Object oldValue = Utils.getUnsafely(field, old);
+            Object newValue = Utils.getUnsafely(field, current);
+            if (Utils.deepEquals(oldValue, newValue)) continue;
+            String path = prefix + field.getName();
+            if (oldValue != null && newValue != null && oldValue.getClass() == newValue.getClass() && isNested(newValue.getClass())) {
+                diff(path + ".", oldValue, newValue, paths, values);
+            } else {
+                paths.add(path);
+                values.add(newValue);
+            }
+        }
+    }
+    
+    private static boolean isNested(Class<?> type) {
+        return !type.isArray() && !Enum.class.isAssignableFrom(type) && !type.isRecord() && !Collection.class.isAssignableFrom(type)
+               && !Map.class.isAssignableFrom(type) && !type.getName().startsWith("java.") && FIELDS.get(type).length > 0;
+    }
+    
+    private static byte[] encodeRecord(List<String> paths, List<Object> values) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeInt(paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            byte[] value = BinaryCodec.encode(values.get(i));
+            payload.writeUTF(paths.get(i));
+            payload.writeInt(value.length);
+            payload.write(value);
+        }
+        payload.close();
+        byte[] bytes = payloadBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ByteBuffer record = ByteBuffer.allocate(8 + bytes.length);
+        record.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+        return record.array();
+    }
+    
+    private void append(byte[] record) throws IOException {
+        Path journalPath = getJournalPath();
+        Files.createDirectories(journalPath.getParent());
+        ByteBuffer header = null;
+        if (!Files.exists(journalPath) || Files.size(journalPath) == 0) {
+            byte[] hash = hashConfigFiles();
+            header = ByteBuffer.allocate(8 + hash.length).putInt(MAGIC).putInt(hash.length).put(hash).flip();
+        }
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            if (header != null) {
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (ConfigFiles.isSyncWrites()) {
+                channel.force(false);
+            }
+        }
+    }
+    
+    /**
+     * Hashes the files written by the wrapped serializer, using the fingerprints of the files
+     * read or written through {@link ConfigFiles} instead of reading them again.
+     */
+    private byte[] hashConfigFiles() throws IOException {
+        Path configFolder = Utils.getConfigFolder();
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (Path path : ConfigFiles.findConfigFiles(definition.name())) {
+            ConfigFiles.Fingerprint fingerprint = ConfigFiles.getFingerprint(path);
+            HashCode hash = fingerprint != null ? fingerprint.hash() : ConfigFiles.hash(Files.readAllBytes(path));
+            hasher.putString(configFolder.relativize(path).toString(), StandardCharsets.UTF_8);
+            hasher.putBytes(hash.asBytes());
+        }
+        return hasher.hash().asBytes();
+    }
+    
+    private void replay(T config) {
+        Path journalPath = getJournalPath();
+        if (!Files.exists(journalPath)) return;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(journalPath)))) {
+            byte[] hash = null;
+            try {
+                if (in.readInt() == MAGIC) {
+                    hash = new byte[in.readInt()];
+                    in.readFully(hash);
+                }
+            } catch (EOFException ignored) {
+            }
+            if (hash == null || !Arrays.equals(hash, hashConfigFiles())) {
+                LOGGER.warn("Discarding the journal of config '{}', its config files changed since it was written", definition.name());
+                in.close();
+                Files.delete(journalPath);
+                return;
+            }
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int checksum = in.readInt();
+                if (length < 0 || length > in.available()) {
+                    throw new EOFException("Truncated journal record");
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                if ((int) crc.getValue() != checksum) {
+                    throw new IOException("Corrupted journal record");
+                }
+                DataInputStream payload = new DataInputStream(new ByteArrayInputStream(bytes));
+                int count = payload.readInt();
+                for (int i = 0; i < count; i++) {
+                    String path = payload.readUTF();
+                    int valueLength = payload.readInt();
+                    if (valueLength < 0 || valueLength > payload.available()) {
+                        throw new IOException("Corrupted journal record");
+                    }
+                    byte[] value = new byte[valueLength];
+                    payload.readFully(value);
+                    apply(config, path, BinaryCodec.decode(value, 0, configClass.getClassLoader()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // A save interrupted while appending leaves a partial record, the changes before it still apply.
+            // The next save writes the whole config and clears the journal, so nothing is appended after it.
+            LOGGER.warn("Stopped replaying the journal of config '{}'", definition.name(), e);
+        }
+    }
+    
+    private static void apply(Object config, String path, Object value) throws IOException {
+        String[] names = path.split("\\.");
+        Object target = config;
+        for (int i = 0; i < names.length; i++) {
+            Field field = findField(target.getClass(), names[i]);
+            if (field == null) {
+                throw new IOException(String.format("Field '%s' no longer exists", path));
+            }
+            if (i == names.length - 1) {
+                Utils.setUnsafely(field, target, value);
+            } else {
+                target = Utils.getUnsafely(field, target);
+                if (target == null) {
+                    throw new IOException(String.format("Field '%s' is null", path));
+                }
+            }
+        }
+    }
+    
+    private static Field findField(Class<?> type, String name) {
+        for (Field field : FIELDS.get(type)) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+    
+    private void scheduleCompaction() {
+        try {
+            if (Files.size(getJournalPath()) < compactionThreshold || !compacting.compareAndSet(false, true)) return;
+        } catch (IOException e) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                compact();
+            } catch (SerializationException e) {
+                LOGGER.error("Failed to compact the journal of config '{}'", definition.name(), e);
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+    
+    private void compact() throws SerializationException {
+        // Held throughout, so that no save writes the config or appends to the journal in between
+        synchronized (journalLock) {
+            if (persisted != null) {
+                writeFully(persisted);
+            }
+        }
+    }
+}
@@ -21,13 +21,23 @@ package me.shedaniel.autoconfig.serializer;
 
 import me.shedaniel.autoconfig.ConfigData;
 import me.shedaniel.autoconfig.annotation.Config;
+import me.shedaniel.autoconfig.util.ConfigFiles;
 import me.shedaniel.autoconfig.util.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -36,37 +46,78 @@ import java.util.stream.Collectors;
  * corresponding to a single config file.
  * The top level config must inherit from GlobalData.
  * Each field of the top level config must be of a type inheriting from ConfigData.
+ * <p>
+ * Modules are read and written in parallel, and only the modules that changed since they were
+ * last written are written again. The first save after reading writes every loaded module, which
+ * creates missing files and adds new fields, while {@link me.shedaniel.autoconfig.util.ConfigFiles#write}
+ * leaves files holding the same contents untouched. With {@link #wrapLazy(ConfigSerializer.Factory)},
+ * a module whose file exists is only read the first time it is requested through {@link GlobalData#getModule(Class)}.
  */
 public final class PartitioningSerializer<T extends PartitioningSerializer.GlobalData, M extends ConfigData> implements ConfigSerializer<T> {
     
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final ClassValue<List<Field>> MODULE_FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            return Arrays.stream(type.getDeclaredFields())
+                    .filter(PartitioningSerializer::isValidModule)
+                    .collect(Collectors.toUnmodifiableList());
+        }
+    };
+    
+    /**
+     * Marks a module which cannot be copied exactly, written on every save.
+     */
+    private static final Object UNTRACKED = new Object();
+    
     private Class<T> configClass;
     private Map<Field, ConfigSerializer<M>> serializers;
+    private final Map<Field, String> moduleNames;
+    private final boolean lazy;
+    /**
+     * Copies of the modules as they were last written.
+     */
+    private final Map<Field, Object> persistedModules = new ConcurrentHashMap<>();
     
-    private PartitioningSerializer(Config definition, Class<T> configClass, ConfigSerializer.Factory<M> factory) {
+    private PartitioningSerializer(Config definition, Class<T> configClass, ConfigSerializer.Factory<M> factory, boolean lazy) {
         this.configClass = configClass;
+        this.lazy = lazy;
         
+        moduleNames = getModuleFields(configClass).stream()
+                .collect(
+                        Utils.toLinkedMap(
+                                Function.identity(),
+                                field -> String.format(
+                                        "%s/%s",
+                                        definition.name(),
+                                        field.getType().getAnnotation(Config.class).name()
+                                )
+                        )
+                );
         //noinspection unchecked
         serializers = getModuleFields(configClass).stream()
                 .collect(
                         Utils.toLinkedMap(
                                 Function.identity(),
-                                field -> factory.create(
-                                        createDefinition(
-                                                String.format(
-                                                        "%s/%s",
-                                                        definition.name(),
-                                                        field.getType().getAnnotation(Config.class).name()
-                                                )
-                                        ),
-                                        (Class<M>) field.getType()
-                                )
+                                field -> factory.create(createDefinition(moduleNames.get(field)), (Class<M>) field.getType())
                         )
                 );
     }
     
     public static <T extends PartitioningSerializer.GlobalData, M extends ConfigData>
     ConfigSerializer.Factory<T> wrap(ConfigSerializer.Factory<M> inner) {
-        return (definition, configClass) -> new PartitioningSerializer<>(definition, configClass, inner);
+        return (definition, configClass) -> new PartitioningSerializer<>(definition, configClass, inner, false);
+    }
+    
+    /**
+     * Wraps the serializer like {@link #wrap(ConfigSerializer.Factory)}, but only reads each module when it is
+     * first requested through {@link GlobalData#getModule(Class)} or {@link GlobalData#loadModules()}.
+     * <p>
+     * Until then, the field of the module is {@code null}. Config screens load all modules before they are built.
+     */
+    public static <T extends PartitioningSerializer.GlobalData, M extends ConfigData>
+    ConfigSerializer.Factory<T> wrapLazy(ConfigSerializer.Factory<M> inner) {
+        return (definition, configClass) -> new PartitioningSerializer<>(definition, configClass, inner, true);
     }
     
     private static Config createDefinition(String name) {
@@ -100,33 +151,117 @@ public final class PartitioningSerializer<T extends PartitioningSerializer.Globa
     }
     
     private static List<Field> getModuleFields(Class<?> configClass) {
-        return Arrays.stream(configClass.getDeclaredFields())
-                .filter(PartitioningSerializer::isValidModule)
-                .collect(Collectors.toList());
+        return MODULE_FIELDS.get(configClass);
     }
     
     @Override
     public void serialize(T config) throws SerializationException {
+        List<CompletableFuture<?>> futures = new ArrayList<>();
         for (Map.Entry<Field, ConfigSerializer<M>> entry : serializers.entrySet()) {
-            entry.getValue().serialize(Utils.getUnsafely(entry.getKey(), config));
+            Field field = entry.getKey();
+            M module = Utils.getUnsafely(field, config);
+            // Modules not loaded yet are unchanged, as are modules equal to what was last written
+            if (module == null || Utils.deepEquals(module, persistedModules.get(field))) continue;
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    entry.getValue().serialize(module);
+                    persistedModules.put(field, persistedCopy(module));
+                } catch (SerializationException e) {
+                    throw new CompletionException(e);
+                }
+            }));
         }
+        join(futures);
     }
     
     @Override
     public T deserialize() throws SerializationException {
         T ret = createDefault();
+        if (lazy) {
+            Map<Field, ModuleReader> pendingModules = new LinkedHashMap<>();
+            for (Map.Entry<Field, ConfigSerializer<M>> entry : serializers.entrySet()) {
+                // Modules without a file are loaded right away, so that the next save creates their file
+                if (hasModuleFile(entry.getKey())) {
+                    Utils.setUnsafely(entry.getKey(), ret, null);
+                    pendingModules.put(entry.getKey(), () -> loadModule(entry.getKey(), entry.getValue()));
+                } else {
+                    Utils.setUnsafely(entry.getKey(), ret, loadModule(entry.getKey(), entry.getValue()));
+                }
+            }
+            ((GlobalData) ret).pendingModules = pendingModules;
+            return ret;
+        }
+        Map<Field, CompletableFuture<M>> futures = new LinkedHashMap<>();
         for (Map.Entry<Field, ConfigSerializer<M>> entry : serializers.entrySet()) {
-            Utils.setUnsafely(entry.getKey(), ret, entry.getValue().deserialize());
+            futures.put(entry.getKey(), CompletableFuture.supplyAsync(() -> {
+                try {
+                    return entry.getValue().deserialize();
+                } catch (SerializationException e) {
+                    throw new CompletionException(e);
+                }
+            }));
+        }
+        join(futures.values());
+        for (Map.Entry<Field, CompletableFuture<M>> entry : futures.entrySet()) {
+            Utils.setUnsafely(entry.getKey(), ret, entry.getValue().join());
         }
         return ret;
     }
     
+    private boolean hasModuleFile(Field field) {
+        try {
+            return !ConfigFiles.findConfigFiles(moduleNames.get(field)).isEmpty();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Reads and validates a lazily read module, falling back to its defaults if that fails.
+     */
+    private M loadModule(Field field, ConfigSerializer<M> serializer) {
+        M module;
+        try {
+            module = serializer.deserialize();
+            module.validatePostLoad();
+        } catch (SerializationException | ConfigData.ValidationException e) {
+            LOGGER.error("Failed to load config module '{}', using default!", field, e);
+            module = serializer.createDefault();
+            // Recorded as written, so that saving leaves the file of the user alone until the module is edited
+            persistedModules.put(field, persistedCopy(module));
+        }
+        return module;
+    }
+    
+    /**
+     * Modules holding values a copy would share are written on every save,
+     * as those values may be mutated in place without the copy seeing it.
+     */
+    private static Object persistedCopy(Object module) {
+        return Utils.isFullyCopyable(module) ? Utils.deepCopy(module) : UNTRACKED;
+    }
+    
+    private static void join(Collection<? extends CompletableFuture<?>> futures) throws SerializationException {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SerializationException serializationException) {
+                throw serializationException;
+            }
+            throw e;
+        }
+    }
+    
     @Override
     public T createDefault() {
         return Utils.constructUnsafely(configClass);
     }
     
     public static abstract class GlobalData implements ConfigData {
+        /**
+         * Readers of the modules that have not been loaded yet, {@code null} unless read lazily.
+         */
+        private transient Map<Field, ModuleReader> pendingModules;
         
         public GlobalData() {
             Arrays.stream(getClass().getDeclaredFields())
@@ -139,8 +274,53 @@ public final class PartitioningSerializer<T extends PartitioningSerializer.Globa
         @Override
         final public void validatePostLoad() throws ValidationException {
             for (Field moduleField : getModuleFields(getClass())) {
-                ((ConfigData) Utils.getUnsafely(moduleField, this)).validatePostLoad();
+                ConfigData module = Utils.getUnsafely(moduleField, this);
+                // Lazily read modules are validated once they are loaded
+                if (module != null) {
+                    module.validatePostLoad();
+                }
             }
         }
+        
+        /**
+         * Returns the module of the given type, reading it first if it has not been loaded yet.
+         *
+         * @throws IllegalArgumentException if there is no module of the given type
+         */
+        public final <M extends ConfigData> M getModule(Class<M> moduleClass) {
+            for (Field moduleField : getModuleFields(getClass())) {
+                if (moduleField.getType() == moduleClass) {
+                    return moduleClass.cast(loadModule(moduleField));
+                }
+            }
+            throw new IllegalArgumentException(String.format("No module of %s in %s", moduleClass, getClass()));
+        }
+        
+        /**
+         * Reads all modules that have not been loaded yet.
+         */
+        public final void loadModules() {
+            for (Field moduleField : getModuleFields(getClass())) {
+                loadModule(moduleField);
+            }
+        }
+        
+        private synchronized ConfigData loadModule(Field moduleField) {
+            ModuleReader reader = pendingModules == null ? null : pendingModules.remove(moduleField);
+            if (reader == null) {
+                return Utils.getUnsafely(moduleField, this);
+            }
+            ConfigData module = reader.read();
+            Utils.setUnsafely(moduleField, this, module);
+            return module;
+        }
+    }
+    
+    /**
+     * Reads a module, or returns its defaults if it cannot be read.
+     */
+    @FunctionalInterface
+    private interface ModuleReader {
+        ConfigData read();
     }
 }
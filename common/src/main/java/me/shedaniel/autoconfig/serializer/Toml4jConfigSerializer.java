@@ -23,9 +23,11 @@ import com.moandjiezana.toml.Toml;
 import com.moandjiezana.toml.TomlWriter;
 import me.shedaniel.autoconfig.ConfigData;
 import me.shedaniel.autoconfig.annotation.Config;
+import me.shedaniel.autoconfig.util.ConfigFiles;
 import me.shedaniel.autoconfig.util.Utils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -58,8 +60,7 @@ public class Toml4jConfigSerializer<T extends ConfigData> implements ConfigSeria
     public void serialize(T config) throws SerializationException {
         Path configPath = getConfigPath();
         try {
-            Files.createDirectories(configPath.getParent());
-            tomlWriter.write(config, configPath.toFile());
+            ConfigFiles.write(configPath, tomlWriter.write(config).getBytes(StandardCharsets.UTF_8));
         } catch (IOException e) {
             throw new SerializationException(e);
         }
@@ -69,11 +70,13 @@ public class Toml4jConfigSerializer<T extends ConfigData> implements ConfigSeria
     public T deserialize() throws SerializationException {
         Path configPath = getConfigPath();
         if (Files.exists(configPath)) {
-            try {
-                return new Toml().read(configPath.toFile()).to(configClass);
-            } catch (IllegalStateException e) {
-                throw new SerializationException(e);
-            }
+            return ConfigFiles.read(configPath, stream -> {
+                try {
+                    return new Toml().read(stream).to(configClass);
+                } catch (IllegalStateException e) {
+                    throw new SerializationException(e);
+                }
+            });
         } else {
             return createDefault();
         }
@@ -21,11 +21,11 @@ package me.shedaniel.autoconfig.serializer;
 
 import me.shedaniel.autoconfig.ConfigData;
 import me.shedaniel.autoconfig.annotation.Config;
+import me.shedaniel.autoconfig.util.ConfigFiles;
 import me.shedaniel.autoconfig.util.Utils;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -55,8 +55,7 @@ public class YamlConfigSerializer<T extends ConfigData> implements ConfigSeriali
     public void serialize(T config) throws SerializationException {
         Path configPath = getConfigPath();
         try {
-            Files.createDirectories(configPath.getParent());
-            Files.write(configPath, yaml.dump(config).getBytes(StandardCharsets.UTF_8));
+            ConfigFiles.write(configPath, yaml.dump(config).getBytes(StandardCharsets.UTF_8));
         } catch (IOException e) {
             throw new SerializationException(e);
         }
@@ -66,11 +65,12 @@ public class YamlConfigSerializer<T extends ConfigData> implements ConfigSeriali
     public T deserialize() throws SerializationException {
         Path configPath = getConfigPath();
         if (Files.exists(configPath)) {
-            try (InputStream stream = Files.newInputStream(configPath)) {
-                return yaml.load(stream);
-            } catch (IOException e) {
-                throw new SerializationException(e);
-            }
+            return ConfigFiles.read(configPath, stream -> {
+                T ret = yaml.load(stream);
+                if (ret == null)
+                    throw new SerializationException(new IOException("Config file is empty"));
+                return ret;
+            });
         } else {
             return createDefault();
         }
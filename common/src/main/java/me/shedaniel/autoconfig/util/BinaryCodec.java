@@ -0,0 +1,319 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig.util;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compact binary encoding of config values, used to journal changes between saves.
+ * <p>
+ * Objects are written field by field through a per-class plan cached in a {@link ClassValue},
+ * along with their class and field names, so that bytes no longer matching the classes fail to decode.
+ */
+@ApiStatus.Internal
+public final class BinaryCodec {
+    private static final byte NULL = 0, BOOLEAN = 1, BYTE = 2, SHORT = 3, CHAR = 4, INT = 5, LONG = 6, FLOAT = 7, DOUBLE = 8,
+            STRING = 9, ENUM = 10, ARRAY = 11, LIST = 12, SET = 13, SORTED_SET = 14, MAP = 15, SORTED_MAP = 16, ENUM_MAP = 17, OBJECT = 18;
+    private static final ClassValue<ObjectPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected ObjectPlan computeValue(Class<?> type) {
+            return new ObjectPlan(type);
+        }
+    };
+    
+    private BinaryCodec() {
+    }
+    
+    /**
+     * @throws UnsupportedOperationException if the object holds values that cannot be encoded
+     */
+    public static byte[] encode(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, value);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * @throws IOException if the bytes are malformed or no longer match the classes they were encoded from
+     */
+    public static Object decode(byte[] bytes, int offset, ClassLoader classLoader) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, offset, bytes.length - offset))) {
+            return new Decoder(in, classLoader).read();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IOException("Failed to decode config", e);
+        }
+    }
+    
+    private static void write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof Byte b) {
+            out.writeByte(BYTE);
+            out.writeByte(b);
+        } else if (value instanceof Short s) {
+            out.writeByte(SHORT);
+            out.writeShort(s);
+        } else if (value instanceof Character c) {
+            out.writeByte(CHAR);
+            out.writeChar(c);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INT);
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Float f) {
+            out.writeByte(FLOAT);
+            out.writeFloat(f);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof Enum<?> e) {
+            out.writeByte(ENUM);
+            writeString(out, e.getDeclaringClass().getName());
+            writeString(out, e.name());
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            out.writeByte(ARRAY);
+            writeString(out, value.getClass().getName());
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                write(out, Array.get(value, i));
+            }
+        } else if (value instanceof Collection<?> collection) {
+            if (collection instanceof SortedSet<?> set) {
+                if (set.comparator() != null) throw new UnsupportedOperationException("Sorted set with comparator");
+                out.writeByte(SORTED_SET);
+            } else {
+                out.writeByte(collection instanceof Set ? SET : LIST);
+            }
+            out.writeInt(collection.size());
+            for (Object element : collection) {
+                write(out, element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            if (map instanceof EnumMap<?, ?>) {
+                out.writeByte(ENUM_MAP);
+                writeString(out, map.isEmpty() ? "" : ((Enum<?>) map.keySet().iterator().next()).getDeclaringClass().getName());
+            } else if (map instanceof SortedMap<?, ?> sortedMap) {
+                if (sortedMap.comparator() != null) throw new UnsupportedOperationException("Sorted map with comparator");
+                out.writeByte(SORTED_MAP);
+            } else {
+                out.writeByte(MAP);
+            }
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(out, entry.getKey());
+                write(out, entry.getValue());
+            }
+        } else {
+            ObjectPlan plan = PLANS.get(value.getClass());
+            if (plan.names == null) {
+                throw new UnsupportedOperationException("Cannot encode " + value.getClass());
+            }
+            out.writeByte(OBJECT);
+            writeString(out, value.getClass().getName());
+            out.writeInt(plan.names.length);
+            for (int i = 0; i < plan.names.length; i++) {
+                writeString(out, plan.names[i]);
+                write(out, plan.fields[i].get(value));
+            }
+        }
+    }
+    
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private record Decoder(DataInputStream in, ClassLoader classLoader) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object read() throws IOException, ReflectiveOperationException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case BOOLEAN:
+                    return in.readBoolean();
+                case BYTE:
+                    return in.readByte();
+                case SHORT:
+                    return in.readShort();
+                case CHAR:
+                    return in.readChar();
+                case INT:
+                    return in.readInt();
+                case LONG:
+                    return in.readLong();
+                case FLOAT:
+                    return in.readFloat();
+                case DOUBLE:
+                    return in.readDouble();
+                case STRING:
+                    return readString();
+                case ENUM:
+                    return Enum.valueOf((Class) loadClass(readString()), readString());
+                case ARRAY: {
+                    Class<?> type = loadClass(readString());
+                    int length = in.readInt();
+                    Object array = Array.newInstance(type.getComponentType(), length);
+                    for (int i = 0; i < length; i++) {
+                        Array.set(array, i, read());
+                    }
+                    return array;
+                }
+                case LIST:
+                case SET:
+                case SORTED_SET: {
+                    int size = in.readInt();
+                    Collection<Object> collection = tag == LIST ? new ArrayList<>(size) : tag == SET ? new LinkedHashSet<>(size) : new TreeSet<>();
+                    for (int i = 0; i < size; i++) {
+                        collection.add(read());
+                    }
+                    return collection;
+                }
+                case MAP:
+                case SORTED_MAP:
+                case ENUM_MAP: {
+                    Map<Object, Object> map;
+                    if (tag == ENUM_MAP) {
+                        String keyType = readString();
+                        map = keyType.isEmpty() ? new HashMap<>() : new EnumMap(loadClass(keyType));
+                    } else {
+                        map = tag == MAP ? new LinkedHashMap<>() : new TreeMap<>();
+                    }
+                    int size = in.readInt();
+                    for (int i = 0; i < size; i++) {
+                        map.put(read(), read());
+                    }
+                    return map;
+                }
+                case OBJECT: {
+                    Class<?> type = loadClass(readString());
+                    ObjectPlan plan = PLANS.get(type);
+                    if (plan.names == null) {
+                        throw new IOException("Cannot decode " + type);
+                    }
+                    Object object = ClassAccessors.of(type).construct();
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String name = readString();
+                        ClassAccessors.FieldAccessor field = plan.byName.get(name);
+                        if (field == null) {
+                            throw new IOException(String.format("Field '%s' no longer exists in %s", name, type));
+                        }
+                        field.set(object, read());
+                    }
+                    return object;
+                }
+                default:
+                    throw new IOException("Unknown tag " + tag);
+            }
+        }
+        
+        private String readString() throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        
+        private Class<?> loadClass(String name) throws ClassNotFoundException {
+            return Class.forName(name, false, classLoader);
+        }
+    }
+    
+    private static final class ObjectPlan {
+        /**
+         * {@code null} if objects of the class cannot be encoded.
+         */
+        private final String[] names;
+        private final ClassAccessors.FieldAccessor[] fields;
+        private final Map<String, ClassAccessors.FieldAccessor> byName = new HashMap<>();
+        
+        private ObjectPlan(Class<?> type) {
+            if (!isEncodable(type)) {
+                this.names = null;
+                this.fields = null;
+                return;
+            }
+            List<String> names = new ArrayList<>();
+            List<ClassAccessors.FieldAccessor> fields = new ArrayList<>();
+            for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+                for (Field field : cls.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) continue;
+                    String name = cls == type ? field.getName() : cls.getName() + "#" + field.getName();
+                    names.add(name);
+                    fields.add(ClassAccessors.of(field));
+                    byName.put(name, fields.get(fields.size() - 1));
+                }
+            }
+            this.names = names.toArray(new String[0]);
+            this.fields = fields.toArray(new ClassAccessors.FieldAccessor[0]);
+        }
+        
+        private static boolean isEncodable(Class<?> type) {
+            if (type.isInterface() || type.isRecord() || Modifier.isAbstract(type.getModifiers())
+                || type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+                return false;
+            }
+            try {
+                type.getDeclaredConstructor();
+                return true;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-class table of method handles for constructing instances and accessing fields,
+ * resolved once and reused instead of going through reflection on every call.
+ * <p>
+ * Classes with generated {@link ConfigMetadata} are constructed and accessed through it instead.
+ */
+@ApiStatus.Internal
+final class ClassAccessors {
+    private static final ClassValue<ClassAccessors> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected ClassAccessors computeValue(Class<?> type) {
+            return new ClassAccessors(type);
+        }
+    };
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodHandle METADATA_GET;
+    private static final MethodHandle IS_NULL;
+    
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            METADATA_GET = lookup.findVirtual(ConfigMetadata.class, "get", MethodType.methodType(Object.class, Object.class, int.class));
+            IS_NULL = lookup.findStatic(Objects.class, "isNull", MethodType.methodType(boolean.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private final Class<?> type;
+    @Nullable
+    private final ConfigMetadata<Object> metadata;
+    private final Map<Field, FieldAccessor> fields = new ConcurrentHashMap<>();
+    private volatile Object constructor;
+    
+    private ClassAccessors(Class<?> type) {
+        this.type = type;
+        //noinspection unchecked
+        this.metadata = (ConfigMetadata<Object>) ConfigMetadata.of(type);
+    }
+    
+    static ClassAccessors of(Class<?> type) {
+        return ACCESSORS.get(type);
+    }
+    
+    static FieldAccessor of(Field field) {
+        return of(field.getDeclaringClass()).field(field);
+    }
+    
+    Object construct() {
+        if (metadata != null) {
+            Object instance = metadata.create();
+            if (instance != null) {
+                return instance;
+            }
+        }
+        Object constructor = this.constructor;
+        if (constructor == null) {
+            this.constructor = constructor = resolveConstructor();
+        }
+        if (constructor instanceof ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            return ((MethodHandle) constructor).invokeExact();
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+    
+    FieldAccessor field(Field field) {
+        return fields.computeIfAbsent(field, f -> new FieldAccessor(f, metadata));
+    }
+    
+    private Object resolveConstructor() {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException e) {
+            // Remembered so that each call fails the same way reflection did
+            return e;
+        }
+    }
+    
+    private static RuntimeException rethrow(Throwable throwable) {
+        if (throwable instanceof RuntimeException e) {
+            return e;
+        } else if (throwable instanceof Error e) {
+            throw e;
+        }
+        return new RuntimeException(throwable);
+    }
+    
+    static final class FieldAccessor {
+        private final Field field;
+        @Nullable
+        private final ConfigMetadata<Object> metadata;
+        private final int index;
+        private final boolean readable;
+        private final boolean writable;
+        private MethodHandle getter;
+        private MethodHandle setter;
+        
+        private FieldAccessor(Field field, @Nullable ConfigMetadata<Object> metadata) {
+            this.field = field;
+            this.metadata = metadata;
+            this.index = metadata == null ? -1 : metadata.indexOf(field.getName());
+            ConfigMetadata.Entry entry = index == -1 ? null : metadata.getEntries().get(index);
+            this.readable = entry != null && entry.has(ConfigMetadata.Entry.READABLE);
+            this.writable = entry != null && entry.has(ConfigMetadata.Entry.WRITABLE);
+        }
+        
+        Object get(Object obj) {
+            if (readable) {
+                return metadata.get(obj, index);
+            }
+            MethodHandle getter = this.getter;
+            if (getter == null) {
+                this.getter = getter = resolve(false);
+            }
+            try {
+                return getter.invokeExact(obj);
+            } catch (Throwable throwable) {
+                throw rethrow(throwable);
+            }
+        }
+        
+        /**
+         * Returns a handle of type {@code (Object)Object} reading the field, or {@code null} for a {@code null} object.
+         */
+        MethodHandle getterHandle() {
+            MethodHandle getter;
+            if (readable) {
+                getter = MethodHandles.insertArguments(METADATA_GET, 2, index).bindTo(metadata);
+            } else {
+                getter = this.getter;
+                if (getter == null) {
+                    this.getter = getter = resolve(false);
+                }
+            }
+            return MethodHandles.guardWithTest(IS_NULL, MethodHandles.empty(GETTER_TYPE), getter);
+        }
+        
+        void set(Object obj, Object value) {
+            if (writable) {
+                metadata.set(obj, index, value);
+                return;
+            }
+            MethodHandle setter = this.setter;
+            if (setter == null) {
+                this.setter = setter = resolve(true);
+            }
+            try {
+                setter.invokeExact(obj, value);
+            } catch (Throwable throwable) {
+                throw rethrow(throwable);
+            }
+        }
+        
+        private MethodHandle resolve(boolean setter) {
+            try {
+                field.setAccessible(true);
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodHandle handle = setter ? lookup.unreflectSetter(field) : lookup.unreflectGetter(field);
+                if (Modifier.isStatic(field.getModifiers())) {
+                    // Like reflection, ignore the instance for static fields
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                }
+                return handle.asType(setter ? SETTER_TYPE : GETTER_TYPE);
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
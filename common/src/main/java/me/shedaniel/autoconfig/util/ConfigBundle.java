@@ -0,0 +1,233 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single file holding the contents of all config files read or written through {@link ConfigFiles},
+ * so that starting the game reads one file instead of every config file.
+ * <p>
+ * The bundle starts with a table of contents listing the path of each file relative to the config folder,
+ * its modification time, and where its contents are. The bundle is read into memory in one go rather than
+ * mapped, so that it can be replaced while in use on every platform.
+ * <p>
+ * The config files stay the source of truth and can still be edited by hand: a file is only served from
+ * the bundle while it exists with the size and modification time it had when bundled, and edited files are
+ * bundled again once read. Deleted files are dropped from the bundle the next time it is written.
+ * <p>
+ * The bundle is used if it exists, if the {@code autoconfig.bundle} system property is {@code true},
+ * or once {@link #enable()} is called.
+ */
+public final class ConfigBundle {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String FILE_NAME = "autoconfig.bundle";
+    private static final int MAGIC = 0x43434246;
+    private static final int VERSION = 1;
+    private static final long FLUSH_DELAY = 2;
+    private static ConfigBundle instance;
+    private static boolean initialized;
+    
+    private final Path configFolder;
+    private final Path bundlePath;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    
+    private ConfigBundle(Path configFolder) {
+        this.configFolder = configFolder.toAbsolutePath().normalize();
+        this.bundlePath = this.configFolder.resolve(FILE_NAME);
+    }
+    
+    /**
+     * Returns the bundle, or {@code null} if it is not used.
+     */
+    @Nullable
+    static synchronized ConfigBundle get() {
+        if (!initialized) {
+            initialized = true;
+            Path configFolder = Utils.getConfigFolder();
+            if (Boolean.getBoolean("autoconfig.bundle") || Files.isRegularFile(configFolder.resolve(FILE_NAME))) {
+                instance = open(configFolder);
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Starts using the bundle, which should be called before any config is registered.
+     */
+    public static synchronized void enable() {
+        get();
+        if (instance == null) {
+            instance = open(Utils.getConfigFolder());
+        }
+    }
+    
+    private static ConfigBundle open(Path configFolder) {
+        ConfigBundle bundle = new ConfigBundle(configFolder);
+        if (Files.isRegularFile(bundle.bundlePath)) {
+            try {
+                bundle.load();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Failed to read the config bundle, it will be rebuilt!", e);
+                bundle.entries.clear();
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(bundle::flush, "Cloth Config Bundle Flush"));
+        return bundle;
+    }
+    
+    private void load() throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(bundlePath));
+        ByteBuffer tocBuffer = bytes.duplicate();
+        DataInputStream toc = new DataInputStream(new ConfigFiles.ByteBufferInputStream(tocBuffer));
+        if (toc.readInt() != MAGIC || toc.readInt() != VERSION) {
+            throw new IOException("Unknown config bundle format");
+        }
+        int count = toc.readInt();
+        String[] paths = new String[count];
+        long[] lastModified = new long[count];
+        int[] offsets = new int[count], lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            paths[i] = toc.readUTF();
+            lastModified[i] = toc.readLong();
+            offsets[i] = toc.readInt();
+            lengths[i] = toc.readInt();
+        }
+        // The contents follow the table of contents, with offsets relative to its end
+        int base = tocBuffer.position();
+        for (int i = 0; i < count; i++) {
+            entries.put(paths[i], new Entry(bytes.slice(base + offsets[i], lengths[i]), FileTime.fromMillis(lastModified[i])));
+        }
+    }
+    
+    /**
+     * Returns the bundled contents of the file, or {@code null} if it is not bundled or was modified since.
+     * The attributes are those of the file on disk, so a deleted file is never served.
+     */
+    @Nullable
+    ByteBuffer read(Path path, BasicFileAttributes attributes) {
+        String relative = relativize(path);
+        Entry entry = relative == null ? null : entries.get(relative);
+        if (entry == null || entry.contents().remaining() != attributes.size()
+            || entry.lastModified().toMillis() != attributes.lastModifiedTime().toMillis()) {
+            return null;
+        }
+        return entry.contents().duplicate();
+    }
+    
+    void update(Path path, ByteBuffer contents, FileTime lastModified) {
+        String relative = relativize(path);
+        if (relative == null) return;
+        entries.put(relative, new Entry(contents.duplicate(), lastModified));
+        if (dirty.compareAndSet(false, true)) {
+            // Coalesces the writes of all configs saved around the same time, such as during startup
+            CompletableFuture.delayedExecutor(FLUSH_DELAY, TimeUnit.SECONDS).execute(this::flush);
+        }
+    }
+    
+    @Nullable
+    private String relativize(Path path) {
+        Path absolute = path.toAbsolutePath().normalize();
+        if (!absolute.startsWith(configFolder) || absolute.equals(bundlePath)) return null;
+        return configFolder.relativize(absolute).toString().replace(File.separatorChar, '/');
+    }
+    
+    /**
+     * Writes the bundle if files were bundled since it was last written.
+     */
+    public synchronized void flush() {
+        if (!dirty.getAndSet(false)) return;
+        Map<String, Entry> entries = new TreeMap<>(this.entries);
+        // Files deleted since they were bundled are never served again, so they are not kept either
+        entries.entrySet().removeIf(entry -> {
+            if (Files.isRegularFile(configFolder.resolve(entry.getKey()))) return false;
+            this.entries.remove(entry.getKey(), entry.getValue());
+            return true;
+        });
+        try {
+            ByteArrayOutputStream tocBytes = new ByteArrayOutputStream();
+            DataOutputStream toc = new DataOutputStream(tocBytes);
+            toc.writeInt(MAGIC);
+            toc.writeInt(VERSION);
+            toc.writeInt(entries.size());
+            int offset = 0;
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                toc.writeUTF(entry.getKey());
+                toc.writeLong(entry.getValue().lastModified().toMillis());
+                toc.writeInt(offset);
+                toc.writeInt(entry.getValue().contents().remaining());
+                offset += entry.getValue().contents().remaining();
+            }
+            toc.close();
+            Path temp = Files.createTempFile(configFolder, FILE_NAME, ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    write(channel, ByteBuffer.wrap(tocBytes.toByteArray()));
+                    for (Entry entry : entries.values()) {
+                        write(channel, entry.contents().duplicate());
+                    }
+                }
+                try {
+                    Files.move(temp, bundlePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, bundlePath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // The config files are still up to date, outdated bundled files are ignored when read
+            LOGGER.warn("Failed to write the config bundle", e);
+        }
+    }
+    
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    private record Entry(ByteBuffer contents, FileTime lastModified) {
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig.util;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import me.shedaniel.autoconfig.serializer.ConfigSerializer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Crash-safe reading and writing of config files.
+ * <p>
+ * Files are written to a temporary file next to the target, which then replaces the target
+ * in a single atomic move, so an interrupted save never leaves a truncated config behind.
+ * The temporary file gets the permissions of the file it replaces.
+ * The version last read successfully is kept as a backup, which is read instead when the config fails to parse.
+ * <p>
+ * The contents last read or written are fingerprinted, so that writing unchanged contents
+ * does not touch the file at all.
+ */
+public final class ConfigFiles {
+    private static final Logger LOGGER = LogManager.getLogger();
+    /**
+     * Extensions of files next to configs that are not configs themselves.
+     */
+    public static final List<String> IGNORED_EXTENSIONS = List.of(".tmp", ".bak", ".bundle", ".journal");
+    private static final Map<Path, Fingerprint> FINGERPRINTS = new ConcurrentHashMap<>();
+    private static volatile boolean syncWrites = true;
+    
+    private ConfigFiles() {
+    }
+    
+    /**
+     * Sets whether written files are flushed to the storage device before they replace the previous version.
+     * Enabled by default.
+     */
+    public static void setSyncWrites(boolean syncWrites) {
+        ConfigFiles.syncWrites = syncWrites;
+    }
+    
+    public static boolean isSyncWrites() {
+        return syncWrites;
+    }
+    
+    public static Path getBackupPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".bak");
+    }
+    
+    /**
+     * Atomically replaces the contents of the file.
+     * Does nothing if the file still has the contents last read or written.
+     */
+    public static void write(Path path, byte[] bytes) throws IOException {
+        write(path, bytes, true);
+    }
+    
+    private static void write(Path path, byte[] bytes, boolean durable) throws IOException {
+        HashCode hash = hash(bytes);
+        if (isUnchanged(path, hash)) {
+            return;
+        }
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = createTempFile(directory, path.getFileName().toString());
+        try {
+            copyPermissions(path, temp);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (durable && syncWrites) {
+                    channel.force(true);
+                }
+            }
+            move(temp, path);
+            FileTime lastModified = Files.getLastModifiedTime(path);
+            FINGERPRINTS.put(key(path), new Fingerprint(hash, bytes.length, lastModified));
+            ConfigBundle bundle = durable ? ConfigBundle.get() : null;
+            if (bundle != null) {
+                bundle.update(path, ByteBuffer.wrap(bytes), lastModified);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /**
+     * Reads the file, falling back to its backup when the file cannot be read or parsed.
+     *
+     * @throws ConfigSerializer.SerializationException the exception of reading the file, if the backup fails as well
+     */
+    public static <T> T read(Path path, Reader<T> reader) throws ConfigSerializer.SerializationException {
+        try {
+            ConfigBundle bundle = ConfigBundle.get();
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            FileTime lastModified = attributes.lastModifiedTime();
+            // Served from the bundle as long as the file was not edited since it was bundled
+            ByteBuffer contents = bundle == null ? null : bundle.read(path, attributes);
+            if (contents == null) {
+                contents = ByteBuffer.wrap(Files.readAllBytes(path));
+                if (bundle != null) {
+                    bundle.update(path, contents, lastModified);
+                }
+            }
+            T ret = reader.read(new ByteBufferInputStream(contents.duplicate()));
+            HashCode hash = hash(contents.duplicate());
+            FINGERPRINTS.put(key(path), new Fingerprint(hash, contents.remaining(), lastModified));
+            refreshBackup(path, contents.duplicate(), hash);
+            return ret;
+        } catch (IOException | ConfigSerializer.SerializationException e) {
+            FINGERPRINTS.remove(key(path));
+            ConfigSerializer.SerializationException exception = e instanceof ConfigSerializer.SerializationException serializationException
+                    ? serializationException : new ConfigSerializer.SerializationException(e);
+            Path backupPath = getBackupPath(path);
+            if (Files.exists(backupPath)) {
+                try (InputStream stream = Files.newInputStream(backupPath)) {
+                    T ret = reader.read(stream);
+                    LOGGER.warn("Failed to read config file '{}', using the backup instead!", path, exception);
+                    return ret;
+                } catch (IOException | ConfigSerializer.SerializationException backupException) {
+                    exception.addSuppressed(backupException);
+                }
+            }
+            throw exception;
+        }
+    }
+    
+    /**
+     * Keeps contents that were read successfully as the backup, unless the backup already has them.
+     */
+    private static void refreshBackup(Path path, ByteBuffer contents, HashCode hash) {
+        Path backupPath = getBackupPath(path);
+        if (isUnchanged(backupPath, hash)) {
+            return;
+        }
+        byte[] bytes = new byte[contents.remaining()];
+        contents.get(bytes);
+        try {
+            write(backupPath, bytes, false);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to back up config file '{}'!", path, e);
+        }
+    }
+    
+    /**
+     * Returns whether the file still has the contents last read or written through this class.
+     */
+    public static boolean isUnchanged(Path path) {
+        Fingerprint fingerprint = FINGERPRINTS.get(key(path));
+        if (fingerprint == null || !fingerprint.matchesAttributes(path)) {
+            return false;
+        }
+        try {
+            return fingerprint.hash().equals(hash(Files.readAllBytes(path)));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    private static boolean isUnchanged(Path path, HashCode hash) {
+        Fingerprint fingerprint = FINGERPRINTS.get(key(path));
+        return fingerprint != null && fingerprint.hash().equals(hash) && fingerprint.matchesAttributes(path);
+    }
+    
+    /**
+     * Returns the fingerprint of the contents last read or written through this class, if the file still has
+     * the size and modification time it had then. Unlike {@link #isUnchanged(Path)}, the file is not read again.
+     */
+    @Nullable
+    public static Fingerprint getFingerprint(Path path) {
+        Fingerprint fingerprint = FINGERPRINTS.get(key(path));
+        return fingerprint != null && fingerprint.matchesAttributes(path) ? fingerprint : null;
+    }
+    
+    private static void remember(Path path, byte[] bytes, FileTime lastModified) {
+        FINGERPRINTS.put(key(path), new Fingerprint(hash(bytes), bytes.length, lastModified));
+    }
+    
+    /**
+     * Returns whether the file belongs to the config with the given name, being named after the config
+     * or being in the folder named after it. Temporary and backup files do not belong to any config.
+     */
+    public static boolean isConfigFile(Path configFolder, Path path, String name) {
+        String relative = configFolder.toAbsolutePath().normalize().relativize(path.toAbsolutePath().normalize())
+                .toString().replace(File.separatorChar, '/');
+        for (String ignored : IGNORED_EXTENSIONS) {
+            if (relative.endsWith(ignored)) return false;
+        }
+        int extension = relative.lastIndexOf('.');
+        if (extension > relative.lastIndexOf('/')) {
+            relative = relative.substring(0, extension);
+        }
+        return relative.equals(name) || relative.startsWith(name + "/");
+    }
+    
+    /**
+     * Returns the files in the config folder belonging to the config with the given name, sorted by path.
+     *
+     * @see #isConfigFile(Path, Path, String)
+     */
+    public static List<Path> findConfigFiles(String name) throws IOException {
+        Path configFolder = Utils.getConfigFolder();
+        Path path = configFolder.resolve(name);
+        Path directory = path.getParent();
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> stream = Files.list(directory)) {
+                stream.filter(Files::isRegularFile).filter(file -> isConfigFile(configFolder, file, name)).forEach(files::add);
+            }
+        }
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> stream = Files.walk(path)) {
+                stream.filter(Files::isRegularFile).filter(file -> isConfigFile(configFolder, file, name)).forEach(files::add);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+    
+    private static Path key(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+    
+    public static HashCode hash(byte[] bytes) {
+        return Hashing.murmur3_128().hashBytes(bytes);
+    }
+    
+    private static HashCode hash(ByteBuffer bytes) {
+        return Hashing.murmur3_128().newHasher().putBytes(bytes).hash();
+    }
+    
+    /**
+     * Creates an empty file with a unique name in the directory, with the default permissions of new files
+     * unlike {@link Files#createTempFile(Path, String, String, java.nio.file.attribute.FileAttribute[])}.
+     */
+    private static Path createTempFile(Path directory, String prefix) throws IOException {
+        while (true) {
+            Path temp = directory.resolve(prefix + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException ignored) {
+            }
+        }
+    }
+    
+    private static void copyPermissions(Path source, Path target) throws IOException {
+        try {
+            Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+        } catch (NoSuchFileException | UnsupportedOperationException ignored) {
+            // A new file keeps the default permissions, other file systems have no POSIX permissions
+        }
+    }
+    
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    public record Fingerprint(HashCode hash, long size, FileTime lastModified) {
+        /**
+         * Checks the file has not been modified or deleted by someone else since it was fingerprinted.
+         */
+        private boolean matchesAttributes(Path path) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return attributes.size() == size && attributes.lastModifiedTime().equals(lastModified);
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+    
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(InputStream stream) throws ConfigSerializer.SerializationException;
+    }
+    
+    /**
+     * Reads the contents of a buffer without copying them, such as a slice of the bundle.
+     */
+    static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+        
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+        
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
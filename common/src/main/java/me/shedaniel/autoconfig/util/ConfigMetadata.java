@@ -0,0 +1,177 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Metadata of a {@link me.shedaniel.autoconfig.annotation.Config @Config} class, generated at compile time
+ * by {@code me.shedaniel.autoconfig.processor.ConfigMetadataProcessor}.
+ * <p>
+ * The processor is optional and not registered as a service, so depending on Cloth Config never runs it.
+ * To enable it, add Cloth Config to the {@code annotationProcessor} configuration and pass
+ * {@code -processor me.shedaniel.autoconfig.processor.ConfigMetadataProcessor} to javac,
+ * listing any other processors of the project in the same option.
+ * When the metadata of a class is present, AutoConfig constructs the class and accesses its fields through
+ * the generated code, and reads field annotations from the summary, instead of using reflection.
+ * Otherwise everything falls back to reflection.
+ */
+public interface ConfigMetadata<T> {
+    /**
+     * Suffix appended to the binary name of a config class, with {@code $} replaced by {@code _},
+     * to form the name of its generated metadata class.
+     */
+    String CLASS_SUFFIX = "_ConfigMetadata";
+    
+    Class<T> getConfigClass();
+    
+    /**
+     * The name declared in {@link me.shedaniel.autoconfig.annotation.Config#name()}.
+     */
+    String getName();
+    
+    /**
+     * @return a new instance created with the no-arg constructor,
+     * or {@code null} if the class has none accessible to generated code
+     */
+    @Nullable
+    T create();
+    
+    /**
+     * The instance fields of the config class, in declaration order,
+     * except those whose type cannot be named from the package of the config class.
+     */
+    List<Entry> getEntries();
+    
+    /**
+     * Reads the field at {@code index} in {@link #getEntries()},
+     * which must have the {@link Entry#READABLE} flag.
+     */
+    Object get(T config, int index);
+    
+    /**
+     * Writes the field at {@code index} in {@link #getEntries()},
+     * which must have the {@link Entry#WRITABLE} flag.
+     */
+    void set(T config, int index, Object value);
+    
+    default int indexOf(String name) {
+        List<Entry> entries = getEntries();
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).name().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    @Nullable
+    default Entry getEntry(String name) {
+        int index = indexOf(name);
+        return index == -1 ? null : getEntries().get(index);
+    }
+    
+    /**
+     * @return the generated metadata of {@code configClass}, or {@code null} if none was generated
+     */
+    @Nullable
+    static <T> ConfigMetadata<T> of(Class<T> configClass) {
+        //noinspection unchecked
+        return (ConfigMetadata<T>) Lookup.METADATA.get(configClass).orElse(null);
+    }
+    
+    /**
+     * Summary of a field and its AutoConfig annotations.
+     *
+     * @param category  the value of {@link me.shedaniel.autoconfig.annotation.ConfigEntry.Category}, or {@code "default"}
+     * @param optionKey the default translation key of the option, {@code text.autoconfig.<name>.option.<field>}
+     * @param min       the minimum of {@link me.shedaniel.autoconfig.annotation.ConfigEntry.BoundedDiscrete}, if {@link #BOUNDED}
+     * @param max       the maximum of {@link me.shedaniel.autoconfig.annotation.ConfigEntry.BoundedDiscrete}, if {@link #BOUNDED}
+     */
+    record Entry(String name, Class<?> type, Kind kind, String category, String optionKey, int flags, long min, long max) {
+        /**
+         * The field can be read by {@link ConfigMetadata#get(Object, int)}.
+         */
+        public static final int READABLE = 1;
+        /**
+         * The field can be written by {@link ConfigMetadata#set(Object, int, Object)}.
+         */
+        public static final int WRITABLE = 1 << 1;
+        public static final int EXCLUDED = 1 << 2;
+        public static final int TOOLTIP = 1 << 3;
+        public static final int NO_TOOLTIP = 1 << 4;
+        public static final int PREFIX_TEXT = 1 << 5;
+        public static final int TRANSITIVE = 1 << 6;
+        public static final int COLLAPSIBLE = 1 << 7;
+        public static final int REQUIRES_RESTART = 1 << 8;
+        public static final int COLOR_PICKER = 1 << 9;
+        public static final int BOUNDED = 1 << 10;
+        
+        public boolean has(int flag) {
+            return (flags & flag) == flag;
+        }
+    }
+    
+    /**
+     * Coarse type of a field, resolved at compile time.
+     */
+    enum Kind {
+        BOOLEAN,
+        INT,
+        LONG,
+        FLOAT,
+        DOUBLE,
+        STRING,
+        ENUM,
+        LIST,
+        ARRAY,
+        OBJECT,
+        OTHER
+    }
+    
+    @ApiStatus.Internal
+    final class Lookup {
+        private static final ClassValue<Optional<ConfigMetadata<?>>> METADATA = new ClassValue<>() {
+            @Override
+            protected Optional<ConfigMetadata<?>> computeValue(Class<?> type) {
+                if (type.isPrimitive() || type.isArray() || type.getClassLoader() == null) {
+                    return Optional.empty();
+                }
+                String name = type.getName().replace('$', '_') + CLASS_SUFFIX;
+                try {
+                    Class<?> metadataClass = Class.forName(name, true, type.getClassLoader());
+                    ConfigMetadata<?> metadata = (ConfigMetadata<?>) metadataClass.getConstructor().newInstance();
+                    return metadata.getConfigClass() == type ? Optional.of(metadata) : Optional.empty();
+                } catch (ClassNotFoundException e) {
+                    return Optional.empty();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new RuntimeException("Failed to load config metadata " + name, e);
+                }
+            }
+        };
+        
+        private Lookup() {
+        }
+    }
+}
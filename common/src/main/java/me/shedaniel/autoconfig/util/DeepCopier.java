@@ -0,0 +1,443 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.autoconfig.util;
+
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableMap;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Per-class plan for deep copying config objects, resolved once and cached in a {@link ClassValue}.
+ * <p>
+ * Config objects are copied and compared field by field, skipping transient fields, while arrays, collections
+ * and maps are copied with their elements into a new instance of the same class. Values known to be immutable, such as strings, boxed primitives,
+ * enums, records and classes with only final fields, are shared with the copy.
+ * Copying any other value that cannot be constructed again fails instead of sharing it.
+ */
+@ApiStatus.Internal
+final class DeepCopier {
+    private static final ClassValue<DeepCopier> COPIERS = new ClassValue<>() {
+        @Override
+        protected DeepCopier computeValue(Class<?> type) {
+            return new DeepCopier(type);
+        }
+    };
+    private static final Set<Class<?>> IMMUTABLE_PLATFORM_CLASSES = Set.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class, Locale.class, Pattern.class,
+            URI.class, URL.class, File.class, Optional.class, Class.class, Object.class
+    );
+    
+    private final Class<?> type;
+    private final Kind kind;
+    private final ClassAccessors.FieldAccessor[] fields;
+    /**
+     * Creates an empty collection or map, taking the comparator of the source if it has a parameter.
+     * {@code null} if the class is constructed through {@link ClassAccessors} instead.
+     */
+    @Nullable
+    private final MethodHandle constructor;
+    
+    private DeepCopier(Class<?> type) {
+        this.type = type;
+        this.constructor = Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type) ? constructorOf(type) : null;
+        this.kind = kindOf(type, constructor);
+        if (kind == Kind.OBJECT) {
+            // Transient fields are not part of the config, the copy keeps what its constructor assigned them
+            this.fields = instanceFields(type).stream()
+                    .filter(field -> !Modifier.isTransient(field.getModifiers()))
+                    .map(ClassAccessors::of)
+                    .toArray(ClassAccessors.FieldAccessor[]::new);
+        } else {
+            this.fields = new ClassAccessors.FieldAccessor[0];
+        }
+    }
+    
+    static <T> T copy(T value) {
+        //noinspection unchecked
+        return (T) copy(value, new IdentityHashMap<>());
+    }
+    
+    private static Object copy(Object value, IdentityHashMap<Object, Object> copies) {
+        if (value == null) return null;
+        DeepCopier copier = COPIERS.get(value.getClass());
+        if (copier.kind == Kind.SHARED || copier.kind == Kind.ASSUMED_IMMUTABLE) return value;
+        Object copy = copies.get(value);
+        if (copy == null) {
+            copy = copier.copyValue(value, copies);
+        }
+        return copy;
+    }
+    
+    /**
+     * Whether a copy of the value would only share values known to be immutable with it,
+     * rather than records or classes with only final fields, which may still hold mutable objects.
+     */
+    static boolean isFullyCopyable(Object value) {
+        return isFullyCopyable(value, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+    
+    private static boolean isFullyCopyable(Object value, Set<Object> visited) {
+        if (value == null) return true;
+        DeepCopier copier = COPIERS.get(value.getClass());
+        switch (copier.kind) {
+            case SHARED, CLONE -> {
+                return true;
+            }
+            case ASSUMED_IMMUTABLE, UNSUPPORTED -> {
+                return false;
+            }
+        }
+        if (!visited.add(value)) return true;
+        switch (copier.kind) {
+            case ARRAY -> {
+                if (copier.type.getComponentType().isPrimitive()) return true;
+                for (Object element : (Object[]) value) {
+                    if (!isFullyCopyable(element, visited)) return false;
+                }
+            }
+            case OBJECT -> {
+                for (ClassAccessors.FieldAccessor field : copier.fields) {
+                    if (!isFullyCopyable(field.get(value), visited)) return false;
+                }
+            }
+            default -> {
+                if (value instanceof Map<?, ?> map) {
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        if (!isFullyCopyable(entry.getKey(), visited) || !isFullyCopyable(entry.getValue(), visited)) return false;
+                    }
+                } else {
+                    for (Object element : (Collection<?>) value) {
+                        if (!isFullyCopyable(element, visited)) return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Compares the values structurally, following the same plan as copying them.
+     */
+    static boolean equals(Object a, Object b) {
+        if (a == b) return true;
+        if (a == null || b == null || a.getClass() != b.getClass()) return false;
+        return COPIERS.get(a.getClass()).equalValues(a, b);
+    }
+    
+    private boolean equalValues(Object a, Object b) {
+        switch (kind) {
+            case ARRAY -> {
+                if (type.getComponentType().isPrimitive()) {
+                    return Objects.deepEquals(a, b);
+                }
+                Object[] arrayA = (Object[]) a, arrayB = (Object[]) b;
+                if (arrayA.length != arrayB.length) return false;
+                for (int i = 0; i < arrayA.length; i++) {
+                    if (!equals(arrayA[i], arrayB[i])) return false;
+                }
+                return true;
+            }
+            case COLLECTION, FIXED_LIST, UNMODIFIABLE -> {
+                if (a instanceof Map) {
+                    return equalMaps((Map<?, ?>) a, (Map<?, ?>) b);
+                } else if (a instanceof Set) {
+                    return a.equals(b);
+                }
+                Collection<?> collectionA = (Collection<?>) a, collectionB = (Collection<?>) b;
+                if (collectionA.size() != collectionB.size()) return false;
+                Iterator<?> iteratorB = collectionB.iterator();
+                for (Object element : collectionA) {
+                    if (!equals(element, iteratorB.next())) return false;
+                }
+                return true;
+            }
+            case MAP -> {
+                return equalMaps((Map<?, ?>) a, (Map<?, ?>) b);
+            }
+            case OBJECT -> {
+                for (ClassAccessors.FieldAccessor field : fields) {
+                    if (!equals(field.get(a), field.get(b))) return false;
+                }
+                return true;
+            }
+            default -> {
+                return a.equals(b);
+            }
+        }
+    }
+    
+    private static boolean equalMaps(Map<?, ?> mapA, Map<?, ?> mapB) {
+        if (mapA.size() != mapB.size()) return false;
+        for (Map.Entry<?, ?> entry : mapA.entrySet()) {
+            if (!mapB.containsKey(entry.getKey()) || !equals(entry.getValue(), mapB.get(entry.getKey()))) return false;
+        }
+        return true;
+    }
+    
+    private Object copyValue(Object value, IdentityHashMap<Object, Object> copies) {
+        switch (kind) {
+            case ARRAY -> {
+                int length = Array.getLength(value);
+                Object copy = Array.newInstance(type.getComponentType(), length);
+                copies.put(value, copy);
+                if (type.getComponentType().isPrimitive()) {
+                    System.arraycopy(value, 0, copy, 0, length);
+                } else {
+                    Object[] source = (Object[]) value, target = (Object[]) copy;
+                    for (int i = 0; i < length; i++) {
+                        target[i] = copy(source[i], copies);
+                    }
+                }
+                return copy;
+            }
+            case COLLECTION -> {
+                //noinspection unchecked
+                Collection<Object> copy = (Collection<Object>) newInstance(value);
+                copies.put(value, copy);
+                for (Object element : (Collection<?>) value) {
+                    copy.add(copy(element, copies));
+                }
+                return copy;
+            }
+            case MAP -> {
+                //noinspection unchecked
+                Map<Object, Object> copy = (Map<Object, Object>) newInstance(value);
+                copies.put(value, copy);
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    copy.put(copy(entry.getKey(), copies), copy(entry.getValue(), copies));
+                }
+                return copy;
+            }
+            case FIXED_LIST -> {
+                // Arrays.asList, a copy backed by a new array keeps its fixed size
+                Object[] elements = new Object[((List<?>) value).size()];
+                List<Object> copy = Arrays.asList(elements);
+                copies.put(value, copy);
+                int i = 0;
+                for (Object element : (List<?>) value) {
+                    elements[i++] = copy(element, copies);
+                }
+                return copy;
+            }
+            case CLONE -> {
+                // EnumSet only holds enum constants
+                Object copy = ((EnumSet<?>) value).clone();
+                copies.put(value, copy);
+                return copy;
+            }
+            case UNMODIFIABLE -> {
+                // Cannot be built again, but sharing it is safe as long as everything it holds is shared too
+                Collection<?> elements = value instanceof Map<?, ?> map ? map.entrySet() : (Collection<?>) value;
+                copies.put(value, value);
+                for (Object element : elements) {
+                    boolean shared = element instanceof Map.Entry<?, ?> entry
+                            ? copy(entry.getKey(), copies) == entry.getKey() && copy(entry.getValue(), copies) == entry.getValue()
+                            : copy(element, copies) == element;
+                    if (!shared) {
+                        throw new IllegalArgumentException("Cannot deep copy unmodifiable " + type.getName() + " holding mutable values");
+                    }
+                }
+                return value;
+            }
+            case OBJECT -> {
+                Object copy = ClassAccessors.of(type).construct();
+                copies.put(value, copy);
+                for (ClassAccessors.FieldAccessor field : fields) {
+                    field.set(copy, copy(field.get(value), copies));
+                }
+                return copy;
+            }
+            default -> throw new IllegalArgumentException("Cannot deep copy " + type.getName()
+                                                          + ", it is not known to be immutable and cannot be copied field by field");
+        }
+    }
+    
+    private Object newInstance(Object value) {
+        if (value instanceof EnumMap<?, ?> map) {
+            EnumMap<?, ?> copy = map.clone();
+            copy.clear();
+            return copy;
+        } else if (constructor == null) {
+            return ClassAccessors.of(type).construct();
+        }
+        try {
+            if (constructor.type().parameterCount() == 1) {
+                return constructor.invoke(comparatorOf(value));
+            }
+            return constructor.invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new RuntimeException(throwable);
+        }
+    }
+    
+    private static Comparator<?> comparatorOf(Object value) {
+        if (value instanceof SortedSet<?> set) {
+            return set.comparator();
+        } else if (value instanceof SortedMap<?, ?> map) {
+            return map.comparator();
+        }
+        return ((PriorityQueue<?>) value).comparator();
+    }
+    
+    /**
+     * Finds the public constructor of a collection or map class, preferring one taking the comparator
+     * of sorted classes, so that the copy keeps both the class and the order of the source.
+     */
+    @Nullable
+    private static MethodHandle constructorOf(Class<?> type) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        if (SortedSet.class.isAssignableFrom(type) || SortedMap.class.isAssignableFrom(type) || PriorityQueue.class.isAssignableFrom(type)) {
+            try {
+                return lookup.findConstructor(type, MethodType.methodType(void.class, Comparator.class))
+                        .asType(MethodType.methodType(Object.class, Comparator.class));
+            } catch (ReflectiveOperationException ignored) {
+            }
+        }
+        try {
+            return lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+    
+    private static Kind kindOf(Class<?> type, @Nullable MethodHandle constructor) {
+        boolean collection = Collection.class.isAssignableFrom(type);
+        if (type.isArray()) {
+            return Kind.ARRAY;
+        } else if (collection || Map.class.isAssignableFrom(type)) {
+            if (EnumSet.class.isAssignableFrom(type)) {
+                return Kind.CLONE;
+            } else if (type.getName().equals("java.util.Arrays$ArrayList")) {
+                return Kind.FIXED_LIST;
+            } else if (isUnmodifiable(type)) {
+                return Kind.UNMODIFIABLE;
+            } else if (constructor != null || EnumMap.class.isAssignableFrom(type) || !isPlatformClass(type) && hasDefaultConstructor(type)) {
+                return collection ? Kind.COLLECTION : Kind.MAP;
+            }
+            return Kind.UNSUPPORTED;
+        } else if (type.isPrimitive() || Enum.class.isAssignableFrom(type)) {
+            return Kind.SHARED;
+        } else if (type.isRecord() || type.isHidden()) {
+            return Kind.ASSUMED_IMMUTABLE;
+        } else if (isPlatformClass(type)) {
+            return isImmutablePlatformClass(type) ? Kind.SHARED : Kind.UNSUPPORTED;
+        } else if (hasDefaultConstructor(type)) {
+            return Kind.OBJECT;
+        }
+        return instanceFields(type).stream().allMatch(field -> Modifier.isFinal(field.getModifiers())) ? Kind.ASSUMED_IMMUTABLE : Kind.UNSUPPORTED;
+    }
+    
+    private static List<Field> instanceFields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+    
+    private static boolean isUnmodifiable(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.util.ImmutableCollections$") || name.startsWith("java.util.Collections$Unmodifiable")
+               || name.startsWith("java.util.Collections$Empty") || name.startsWith("java.util.Collections$Singleton")
+               || ImmutableCollection.class.isAssignableFrom(type) || ImmutableMap.class.isAssignableFrom(type);
+    }
+    
+    private static boolean isPlatformClass(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+    
+    private static boolean isImmutablePlatformClass(Class<?> type) {
+        return IMMUTABLE_PLATFORM_CLASSES.contains(type) || type.getName().startsWith("java.time.")
+               || Path.class.isAssignableFrom(type) || Charset.class.isAssignableFrom(type);
+    }
+    
+    private static boolean hasDefaultConstructor(Class<?> type) {
+        try {
+            type.getDeclaredConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+    
+    private enum Kind {
+        SHARED,
+        /**
+         * Records and classes with only final fields, shared like immutable values
+         * although they may hold mutable objects.
+         */
+        ASSUMED_IMMUTABLE,
+        ARRAY,
+        COLLECTION,
+        MAP,
+        /**
+         * A list returned by {@link Arrays#asList(Object[])}.
+         */
+        FIXED_LIST,
+        CLONE,
+        UNMODIFIABLE,
+        OBJECT,
+        UNSUPPORTED
+    }
+}
@@ -21,7 +21,7 @@ package me.shedaniel.autoconfig.util;
 
 import dev.architectury.injectables.annotations.ExpectPlatform;
 
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.nio.file.Path;
 import java.util.LinkedHashMap;
@@ -40,27 +40,33 @@ public class Utils {
         throw new AssertionError();
     }
     
+    /**
+     * Returns whether the game is running on a physical client, as opposed to a dedicated server.
+     */
+    @ExpectPlatform
+    public static boolean isClient() {
+        throw new AssertionError();
+    }
+    
     public static <V> V constructUnsafely(Class<V> cls) {
-        try {
-            Constructor<V> constructor = cls.getDeclaredConstructor();
-            constructor.setAccessible(true);
-            return constructor.newInstance();
-        } catch (ReflectiveOperationException e) {
-            throw new RuntimeException(e);
-        }
+        //noinspection unchecked
+        return (V) ClassAccessors.of(cls).construct();
     }
     
     public static <V> V getUnsafely(Field field, Object obj) {
         if (obj == null)
             return null;
         
-        try {
-            field.setAccessible(true);
-            //noinspection unchecked
-            return (V) field.get(obj);
-        } catch (ReflectiveOperationException e) {
-            throw new RuntimeException(e);
-        }
+        //noinspection unchecked
+        return (V) ClassAccessors.of(field).get(obj);
+    }
+    
+    /**
+     * Returns a handle of type {@code (Object)Object} reading the field, which like {@link #getUnsafely(Field, Object)}
+     * returns {@code null} for a {@code null} object.
+     */
+    public static MethodHandle getterHandleUnsafely(Field field) {
+        return ClassAccessors.of(field).getterHandle();
     }
     
     public static <V> V getUnsafely(Field field, Object obj, V defaultValue) {
@@ -74,12 +80,34 @@ public class Utils {
         if (obj == null)
             return;
         
-        try {
-            field.setAccessible(true);
-            field.set(obj, newValue);
-        } catch (ReflectiveOperationException e) {
-            throw new RuntimeException(e);
-        }
+        ClassAccessors.of(field).set(obj, newValue);
+    }
+    
+    /**
+     * Copies the config object along with the objects, arrays, collections and maps it holds,
+     * keeping the class of each collection and map. Transient fields are not copied.
+     * Immutable values such as strings, boxed primitives, enums and records are shared with the copy.
+     *
+     * @throws IllegalArgumentException if the config holds a value which is neither known to be immutable nor copyable
+     */
+    public static <V> V deepCopy(V value) {
+        return DeepCopier.copy(value);
+    }
+    
+    /**
+     * Whether {@link #deepCopy(Object)} would succeed and only share values known to be immutable,
+     * so that comparing the copy with {@link #deepEquals(Object, Object)} later detects every change.
+     */
+    public static boolean isFullyCopyable(Object value) {
+        return DeepCopier.isFullyCopyable(value);
+    }
+    
+    /**
+     * Compares the config objects structurally, along with the objects, arrays, collections and maps they hold,
+     * ignoring transient fields.
+     */
+    public static boolean deepEquals(Object a, Object b) {
+        return DeepCopier.equals(a, b);
     }
     
     public static <T, K, U> Collector<T, ?, Map<K, U>> toLinkedMap(
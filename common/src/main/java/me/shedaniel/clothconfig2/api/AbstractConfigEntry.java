@@ -29,6 +29,8 @@ import me.shedaniel.clothconfig2.gui.widget.DynamicElementListWidget;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.ChatFormatting;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.MutableComponent;
 import org.jetbrains.annotations.ApiStatus;
@@ -39,6 +41,8 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -46,6 +50,17 @@ import java.util.function.Supplier;
 public abstract class AbstractConfigEntry<T> extends DynamicElementListWidget.ElementEntry<AbstractConfigEntry<T>> implements ReferenceProvider<T> {
     private AbstractConfigScreen screen;
     private Supplier<Optional<Component>> errorSupplier;
+    private long errorSupplierDebounce = 0;
+    @Nullable
+    private Object cachedErrorKey = null;
+    private Optional<Component> cachedError = Optional.empty();
+    @Nullable
+    private Object suppliedErrorKey = null;
+    private Optional<Component> suppliedError = Optional.empty();
+    private boolean suppliedErrorStale = false;
+    private volatile int suppliedErrorRevision = 0;
+    @Nullable
+    private Object pendingErrorKey = null;
     @Nullable
     private List<ReferenceProvider<?>> referencableEntries = null;
     @Nullable
@@ -115,20 +130,138 @@ public abstract class AbstractConfigEntry<T> extends DynamicElementListWidget.El
         } else {
             this.additionalSearchTags = Iterables.concat(this.additionalSearchTags, tags);
         }
+        notifySearchTagsChanged();
+    }
+    
+    /**
+     * Notifies the screen that the value of this entry has changed outside of user input,
+     * so that its edited and error states are evaluated again.
+     */
+    public void notifyValueChanged() {
+        if (this.screen != null)
+            this.screen.invalidateEntryState(this, true);
+    }
+    
+    /**
+     * Notifies the screen that {@link #getSearchTags()} has changed, so that its search index is rebuilt.
+     */
+    public void notifySearchTagsChanged() {
+        if (this.screen != null)
+            this.screen.invalidateSearchResults();
     }
     
     public abstract T getValue();
     
     public final Optional<Component> getConfigError() {
-        if (errorSupplier != null && errorSupplier.get().isPresent())
+        Object key = getErrorCacheKey();
+        if (key != null && key.equals(cachedErrorKey))
+            return cachedError;
+        Optional<Component> error = getSuppliedError(key);
+        if (error.isEmpty())
+            error = getError();
+        if (key != null) {
+            this.cachedErrorKey = key;
+            this.cachedError = error;
+        }
+        return error;
+    }
+    
+    /**
+     * Returns the state the errors of this entry are computed from, the errors are only computed
+     * again when it changes. Returns {@code null} if the errors cannot be cached.
+     */
+    @Nullable
+    protected Object getErrorCacheKey() {
+        return null;
+    }
+    
+    /**
+     * Discards the cached errors of this entry, to be called when they change without the
+     * {@linkplain #getErrorCacheKey() cache key} changing, e.g. when the error supplier reads other entries.
+     */
+    public void invalidateConfigError() {
+        this.cachedErrorKey = null;
+        this.suppliedErrorStale = true;
+    }
+    
+    /**
+     * Evaluates a debounced error supplier now if its result is outdated, so that the errors are exact.
+     * This is called before saving.
+     */
+    @ApiStatus.Internal
+    public void settleConfigError() {
+        Object key = getErrorCacheKey();
+        if (errorSupplier == null || errorSupplierDebounce <= 0 || key == null)
+            return;
+        if (!suppliedErrorStale && key.equals(suppliedErrorKey))
+            return;
+        this.suppliedErrorRevision++;
+        this.pendingErrorKey = null;
+        this.suppliedErrorKey = key;
+        this.suppliedErrorStale = false;
+        this.suppliedError = errorSupplier.get();
+        this.cachedErrorKey = null;
+    }
+    
+    private Optional<Component> getSuppliedError(@Nullable Object key) {
+        if (errorSupplier == null)
+            return Optional.empty();
+        if (errorSupplierDebounce <= 0 || key == null)
             return errorSupplier.get();
-        return getError();
+        if (suppliedErrorKey == null) {
+            // Nothing to show until the first result, evaluate it directly once
+            settleConfigError();
+            return suppliedError;
+        }
+        if (!suppliedErrorStale && key.equals(suppliedErrorKey))
+            return suppliedError;
+        if (suppliedErrorStale || !key.equals(pendingErrorKey)) {
+            // Evaluate the supplier in the background once the value has not changed for the debounce duration
+            this.suppliedErrorStale = false;
+            this.pendingErrorKey = key;
+            int revision = ++this.suppliedErrorRevision;
+            Supplier<Optional<Component>> supplier = this.errorSupplier;
+            CompletableFuture.supplyAsync(() -> revision == this.suppliedErrorRevision ? supplier.get() : null, CompletableFuture.delayedExecutor(errorSupplierDebounce, TimeUnit.MILLISECONDS, Util.backgroundExecutor()))
+                    .thenAcceptAsync(error -> {
+                        if (revision != this.suppliedErrorRevision) return;
+                        this.pendingErrorKey = null;
+                        this.suppliedErrorKey = key;
+                        this.suppliedError = error;
+                        this.cachedErrorKey = null;
+                        if (this.screen != null)
+                            this.screen.invalidateEntryState(this, false);
+                    }, Minecraft.getInstance());
+        }
+        // The last result is kept until the new one arrives, saving evaluates the supplier directly
+        return suppliedError;
     }
     
     public void lateRender(PoseStack matrices, int mouseX, int mouseY, float delta) {}
     
     public void setErrorSupplier(Supplier<Optional<Component>> errorSupplier) {
         this.errorSupplier = errorSupplier;
+        this.suppliedErrorKey = null;
+        this.pendingErrorKey = null;
+        this.suppliedErrorRevision++;
+        invalidateConfigError();
+    }
+    
+    @ApiStatus.Internal
+    public final boolean hasErrorSupplier() {
+        return errorSupplier != null;
+    }
+    
+    /**
+     * Sets the time the value of this entry has to stay unchanged before the error supplier is evaluated
+     * on a background thread, the entry keeps reporting the previous result until then.
+     * This is intended for expensive error suppliers, which must then be safe to call off the client thread,
+     * and requires the entry to provide a {@linkplain #getErrorCacheKey() cache key}.
+     *
+     * @param debounce the debounce duration in milliseconds, {@code 0} to evaluate the supplier directly
+     */
+    public void setErrorSupplierDebounce(long debounce) {
+        this.errorSupplierDebounce = debounce;
+        invalidateConfigError();
     }
     
     public Optional<Component> getError() {
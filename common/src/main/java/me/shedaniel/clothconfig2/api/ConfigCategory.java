@@ -40,6 +40,24 @@ public interface ConfigCategory {
     
     ConfigCategory addEntry(AbstractConfigListEntry entry);
     
+    /**
+     * Adds entries that are only built when first needed, which on a tabbed screen is when the tab of
+     * this category is first selected or when the screen is saved. They are appended after the entries
+     * added with {@link #addEntry}.
+     * <p>
+     * Categories which do not support this build the entries right away.
+     */
+    default ConfigCategory addLazyEntries(Supplier<List<AbstractConfigListEntry>> entries) {
+        for (AbstractConfigListEntry entry : entries.get()) {
+            addEntry(entry);
+        }
+        return this;
+    }
+    
+    default boolean hasLazyEntries() {
+        return false;
+    }
+    
     ConfigCategory setCategoryBackground(ResourceLocation identifier);
     
     void setBackground(@Nullable ResourceLocation background);
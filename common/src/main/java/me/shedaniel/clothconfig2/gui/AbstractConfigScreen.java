@@ -33,6 +33,7 @@ import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.components.AbstractWidget;
 import net.minecraft.client.gui.components.EditBox;
+import net.minecraft.client.gui.components.events.ContainerEventHandler;
 import net.minecraft.client.gui.components.events.GuiEventListener;
 import net.minecraft.client.gui.screens.ConfirmLinkScreen;
 import net.minecraft.client.gui.screens.ConfirmScreen;
@@ -47,6 +48,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -71,6 +73,8 @@ public abstract class AbstractConfigScreen extends Screen implements ConfigScree
     private Runnable savingRunnable = null;
     @Nullable
     protected Consumer<Screen> afterInitConsumer = null;
+    @Nullable
+    private EntryStateTracker entryStates = null;
     
     protected AbstractConfigScreen(Screen parent, Component title, ResourceLocation backgroundLocation) {
         super(title);
@@ -99,28 +103,77 @@ public abstract class AbstractConfigScreen extends Screen implements ConfigScree
     
     @Override
     public boolean isRequiresRestart() {
-        for (List<AbstractConfigEntry<?>> entries : getCategorizedEntries().values()) {
-            for (AbstractConfigEntry<?> entry : entries) {
-                if (entry.getConfigError().isEmpty() && entry.isEdited() && entry.isRequiresRestart()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return getEntryStates().isRequiresRestart();
     }
     
     public abstract Map<Component, List<AbstractConfigEntry<?>>> getCategorizedEntries();
     
     @Override
     public boolean isEdited() {
-        for (List<AbstractConfigEntry<?>> entries : getCategorizedEntries().values()) {
-            for (AbstractConfigEntry<?> entry : entries) {
-                if (entry.isEdited()) {
-                    return true;
-                }
-            }
+        return getEntryStates().isEdited();
+    }
+    
+    public boolean hasErrors() {
+        return getEntryStates().hasErrors();
+    }
+    
+    /**
+     * Returns the errors of the entries of this screen, in the order of the entries.
+     */
+    public Collection<Component> getErrors() {
+        return getEntryStates().getErrors();
+    }
+    
+    private EntryStateTracker getEntryStates() {
+        if (entryStates == null) {
+            entryStates = new EntryStateTracker(getCategorizedEntries().values());
+        }
+        return entryStates;
+    }
+    
+    /**
+     * Marks the edited and error states of the entry as stale, they will be evaluated again on the next query.
+     *
+     * @param valueChanged whether the value of the entry changed, which also invalidates the entries depending on it
+     */
+    @ApiStatus.Internal
+    public void invalidateEntryState(AbstractConfigEntry<?> entry, boolean valueChanged) {
+        if (entryStates != null) {
+            entryStates.invalidate(entry, valueChanged);
+        }
+    }
+    
+    /**
+     * Discards the tracked entry states, to be called when the categorized entries change.
+     */
+    @ApiStatus.Internal
+    protected void resetEntryStates() {
+        this.entryStates = null;
+    }
+    
+    /**
+     * The entries of Cloth Config report their changes themselves, this covers custom entries which do not.
+     */
+    private boolean invalidateFocusedEntry(boolean handled) {
+        GuiEventListener focused = getFocused();
+        while (focused instanceof ContainerEventHandler && !(focused instanceof AbstractConfigEntry)) {
+            focused = ((ContainerEventHandler) focused).getFocused();
+        }
+        if (focused instanceof AbstractConfigEntry<?> entry) {
+            invalidateEntryState(entry, true);
         }
-        return false;
+        return handled;
+    }
+    
+    public boolean matchesSearch(AbstractConfigEntry<?> entry) {
+        return matchesSearch(entry.getSearchTags());
+    }
+    
+    /**
+     * Discards the search index of this screen, called when the search tags of an entry change.
+     */
+    @ApiStatus.Internal
+    public void invalidateSearchResults() {
     }
     
     public boolean isShowingTabs() {
@@ -166,6 +219,8 @@ public abstract class AbstractConfigScreen extends Screen implements ConfigScree
     
     @Override
     public void saveAll(boolean openOtherScreens) {
+        if (!validateBeforeSave())
+            return;
         for (List<AbstractConfigEntry<?>> entries : Lists.newArrayList(getCategorizedEntries().values()))
             for (AbstractConfigEntry<?> entry : entries)
                 entry.save();
@@ -178,6 +233,17 @@ public abstract class AbstractConfigScreen extends Screen implements ConfigScree
         }
     }
     
+    /**
+     * Evaluates the states of every entry again before saving, so that a value can never be saved
+     * with an error that was not reported yet.
+     *
+     * @return whether the entries can be saved
+     */
+    protected boolean validateBeforeSave() {
+        getEntryStates().settleAll();
+        return !hasErrors();
+    }
+    
     public void save() {
         Optional.ofNullable(this.savingRunnable).ifPresent(Runnable::run);
     }
@@ -206,6 +272,7 @@ public abstract class AbstractConfigScreen extends Screen implements ConfigScree
         if (focusedBinding != null) {
             startedKeyCode = this.focusedBinding.getValue();
             startedKeyCode.setKeyCodeAndModifier(InputConstants.UNKNOWN, Modifier.none());
+            focusedBinding.notifyValueChanged();
         } else
             startedKeyCode = null;
     }
@@ -217,7 +284,7 @@ public abstract class AbstractConfigScreen extends Screen implements ConfigScree
             setFocusedBinding(null);
             return true;
         }
-        return super.mouseReleased(double_1, double_2, int_1);
+        return invalidateFocusedEntry(super.mouseReleased(double_1, double_2, int_1));
     }
     
     @Override
@@ -227,7 +294,7 @@ public abstract class AbstractConfigScreen extends Screen implements ConfigScree
             setFocusedBinding(null);
             return true;
         }
-        return super.keyReleased(int_1, int_2, int_3);
+        return invalidateFocusedEntry(super.keyReleased(int_1, int_2, int_3));
     }
     
     @Override
@@ -260,7 +327,7 @@ public abstract class AbstractConfigScreen extends Screen implements ConfigScree
         } else {
             if (this.focusedBinding != null)
                 return true;
-            return super.mouseClicked(double_1, double_2, int_1);
+            return invalidateFocusedEntry(super.mouseClicked(double_1, double_2, int_1));
         }
     }
     
@@ -315,7 +382,22 @@ public abstract class AbstractConfigScreen extends Screen implements ConfigScree
         if (int_1 == 256 && this.shouldCloseOnEsc()) {
             return quit();
         }
-        return super.keyPressed(int_1, int_2, int_3);
+        return invalidateFocusedEntry(super.keyPressed(int_1, int_2, int_3));
+    }
+    
+    @Override
+    public boolean charTyped(char character, int modifiers) {
+        return invalidateFocusedEntry(super.charTyped(character, modifiers));
+    }
+    
+    @Override
+    public boolean mouseDragged(double mouseX, double mouseY, int button, double deltaX, double deltaY) {
+        return invalidateFocusedEntry(super.mouseDragged(mouseX, mouseY, button, deltaX, deltaY));
+    }
+    
+    @Override
+    public boolean mouseScrolled(double mouseX, double mouseY, double amount) {
+        return invalidateFocusedEntry(super.mouseScrolled(mouseX, mouseY, amount));
     }
     
     protected final boolean quit() {
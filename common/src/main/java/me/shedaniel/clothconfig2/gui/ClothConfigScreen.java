@@ -29,6 +29,7 @@ import me.shedaniel.clothconfig2.api.animator.ValueAnimator;
 import me.shedaniel.clothconfig2.gui.entries.EmptyEntry;
 import me.shedaniel.clothconfig2.gui.widget.DynamicElementListWidget;
 import me.shedaniel.clothconfig2.gui.widget.SearchFieldEntry;
+import me.shedaniel.clothconfig2.impl.ConfigCategoryImpl;
 import me.shedaniel.math.Point;
 import me.shedaniel.math.Rectangle;
 import net.fabricmc.api.EnvType;
@@ -84,16 +85,7 @@ public class ClothConfigScreen extends AbstractTabbedConfigScreen {
         super(parent, title, backgroundLocation);
         categoryMap.forEach((categoryName, category) -> {
             List<AbstractConfigEntry<?>> entries = Lists.newArrayList();
-            for (Object object : category.getEntries()) {
-                AbstractConfigListEntry<?> entry;
-                if (object instanceof Tuple<?, ?>) {
-                    entry = (AbstractConfigListEntry<?>) ((Tuple<?, ?>) object).getB();
-                } else {
-                    entry = (AbstractConfigListEntry<?>) object;
-                }
-                entry.setScreen(this);
-                entries.add(entry);
-            }
+            addEntries(entries, category.getEntries());
             categorizedEntries.put(category.getCategoryKey(), entries);
             if (category.getBackground() != null) {
                 registerCategoryBackground(category.getCategoryKey().getString(), category.getBackground());
@@ -104,6 +96,63 @@ public class ClothConfigScreen extends AbstractTabbedConfigScreen {
         this.categoryMap = categoryMap;
     }
     
+    private void addEntries(List<AbstractConfigEntry<?>> entries, List<Object> objects) {
+        for (Object object : objects) {
+            AbstractConfigListEntry<?> entry;
+            if (object instanceof Tuple<?, ?>) {
+                entry = (AbstractConfigListEntry<?>) ((Tuple<?, ?>) object).getB();
+            } else {
+                entry = (AbstractConfigListEntry<?>) object;
+            }
+            entry.setScreen(this);
+            entries.add(entry);
+        }
+    }
+    
+    /**
+     * Builds the lazy entries of the category, if any are pending, and returns all of its entries.
+     * Until then, the entries are missing from {@link #getCategorizedEntries()}, they cannot be edited
+     * or have errors before they are shown anyway.
+     */
+    private List<AbstractConfigEntry<?>> loadCategory(Component categoryKey) {
+        List<AbstractConfigEntry<?>> entries = categorizedEntries.get(categoryKey);
+        ConfigCategory category = categoryMap.get(categoryKey.getString());
+        if (category instanceof ConfigCategoryImpl impl && impl.hasLazyEntries()) {
+            addEntries(entries, impl.loadLazyEntries());
+            resetEntryStates();
+            invalidateSearchResults();
+        }
+        return entries;
+    }
+    
+    /**
+     * Also builds the entries of the tabs never selected, so that their values are validated before saving.
+     * If any entry has an error, the first tab with an error is selected.
+     */
+    @Override
+    protected boolean validateBeforeSave() {
+        for (Component categoryKey : categorizedEntries.keySet()) {
+            ConfigCategory category = categoryMap.get(categoryKey.getString());
+            if (category != null && category.hasLazyEntries()) {
+                loadCategory(categoryKey);
+            }
+        }
+        if (super.validateBeforeSave())
+            return true;
+        int index = 0;
+        for (List<AbstractConfigEntry<?>> entries : categorizedEntries.values()) {
+            if (entries.stream().anyMatch(entry -> entry.getConfigError().isPresent())) {
+                if (selectedCategoryIndex != index) {
+                    selectedCategoryIndex = index;
+                    init(minecraft, width, height);
+                }
+                break;
+            }
+            index++;
+        }
+        return false;
+    }
+    
     @Override
     public Component getSelectedCategory() {
         return tabs.get(selectedCategoryIndex).getA();
@@ -124,23 +173,14 @@ public class ClothConfigScreen extends AbstractTabbedConfigScreen {
         listWidget.children().add((AbstractConfigEntry) (searchFieldEntry = new SearchFieldEntry(this, listWidget)));
         listWidget.children().add((AbstractConfigEntry) new EmptyEntry(5));
         if (categorizedEntries.size() > selectedCategoryIndex) {
-            listWidget.children().addAll((List) Lists.newArrayList(categorizedEntries.values()).get(selectedCategoryIndex));
+            listWidget.children().addAll((List) loadCategory(tabs.get(selectedCategoryIndex).getA()));
         }
         int buttonWidths = Math.min(200, (width - 50 - 12) / 3);
         addRenderableWidget(new Button(width / 2 - buttonWidths - 3, height - 26, buttonWidths, 20, isEdited() ? Component.translatable("text.cloth-config.cancel_discard") : Component.translatable("gui.cancel"), widget -> quit()));
         addRenderableWidget(new Button(width / 2 + 3, height - 26, buttonWidths, 20, Component.empty(), button -> saveAll(true)) {
             @Override
             public void render(PoseStack matrices, int mouseX, int mouseY, float delta) {
-                boolean hasErrors = false;
-                for (List<AbstractConfigEntry<?>> entries : Lists.newArrayList(categorizedEntries.values())) {
-                    for (AbstractConfigEntry<?> entry : entries)
-                        if (entry.getConfigError().isPresent()) {
-                            hasErrors = true;
-                            break;
-                        }
-                    if (hasErrors)
-                        break;
-                }
+                boolean hasErrors = hasErrors();
                 active = isEdited() && !hasErrors;
                 setMessage(hasErrors ? Component.translatable("text.cloth-config.error_cannot_save") : Component.translatable("text.cloth-config.save_and_done"));
                 super.render(matrices, mouseX, mouseY, delta);
@@ -193,6 +233,17 @@ public class ClothConfigScreen extends AbstractTabbedConfigScreen {
         return searchFieldEntry.matchesSearch(tags);
     }
     
+    @Override
+    public boolean matchesSearch(AbstractConfigEntry<?> entry) {
+        return searchFieldEntry.matchesSearch(entry);
+    }
+    
+    @Override
+    public void invalidateSearchResults() {
+        if (searchFieldEntry != null)
+            searchFieldEntry.invalidateSearchIndex();
+    }
+    
     @Override
     public boolean mouseScrolled(double mouseX, double mouseY, double amount) {
         if (tabsBounds.contains(mouseX, mouseY) && !tabsLeftBounds.contains(mouseX, mouseY) && !tabsRightBounds.contains(mouseX, mouseY) && amount != 0d) {
@@ -234,7 +285,7 @@ public class ClothConfigScreen extends AbstractTabbedConfigScreen {
         }
         listWidget.render(matrices, mouseX, mouseY, delta);
         ScissorsHandler.INSTANCE.scissor(new Rectangle(listWidget.left, listWidget.top, listWidget.width, listWidget.bottom - listWidget.top));
-        for (AbstractConfigEntry child : listWidget.children())
+        for (AbstractConfigEntry child : listWidget.renderedChildren())
             child.lateRender(matrices, mouseX, mouseY, delta);
         ScissorsHandler.INSTANCE.removeLastScissor();
         if (isShowingTabs()) {
@@ -254,16 +305,12 @@ public class ClothConfigScreen extends AbstractTabbedConfigScreen {
             drawCenteredString(matrices, minecraft.font, title, width / 2, 12, -1);
         
         if (isEditable()) {
-            List<Component> errors = Lists.newArrayList();
-            for (List<AbstractConfigEntry<?>> entries : Lists.newArrayList(categorizedEntries.values()))
-                for (AbstractConfigEntry<?> entry : entries)
-                    if (entry.getConfigError().isPresent())
-                        errors.add(entry.getConfigError().get());
+            Collection<Component> errors = getErrors();
             if (errors.size() > 0) {
                 RenderSystem.setShader(GameRenderer::getPositionTexShader);
                 RenderSystem.setShaderTexture(0, CONFIG_TEX);
                 RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
-                String text = "§c" + (errors.size() == 1 ? errors.get(0).plainCopy().getString() : I18n.get("text.cloth-config.multi_error"));
+                String text = "§c" + (errors.size() == 1 ? errors.iterator().next().plainCopy().getString() : I18n.get("text.cloth-config.multi_error"));
                 if (isTransparentBackground()) {
                     int stringWidth = minecraft.font.width(text);
                     fillGradient(matrices, 8, 9, 20 + stringWidth, 14 + minecraft.font.lineHeight, 0x68000000, 0x68000000);
@@ -0,0 +1,181 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.clothconfig2.gui;
+
+import me.shedaniel.clothconfig2.api.AbstractConfigEntry;
+import me.shedaniel.clothconfig2.api.ReferenceProvider;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.network.chat.Component;
+
+import java.util.*;
+
+/**
+ * Keeps the edited, error and requires restart states of the entries of a screen, with counters
+ * so that the screen wide states can be queried without scanning every entry.
+ * <p>
+ * Entries report their value changes through {@link AbstractConfigEntry#notifyValueChanged()}, only the entries
+ * invalidated since the last query are evaluated again. Nested entries are mapped to the top level entry containing
+ * them, unknown entries cause a full refresh. Error suppliers may read other entries, so the entries with one
+ * are invalidated together with any changed entry.
+ */
+@Environment(EnvType.CLIENT)
+final class EntryStateTracker {
+    private final Map<AbstractConfigEntry<?>, Integer> ids = new IdentityHashMap<>();
+    private final List<AbstractConfigEntry<?>> entries = new ArrayList<>();
+    private final Map<AbstractConfigEntry<?>, Integer> dependents = new IdentityHashMap<>();
+    private final BitSet edited = new BitSet();
+    private final BitSet requiresRestart = new BitSet();
+    private final TreeMap<Integer, Component> errors = new TreeMap<>();
+    private final BitSet dirty = new BitSet();
+    private boolean allDirty = true;
+    private boolean nestedDirty = false;
+    private int editedCount;
+    private int requiresRestartCount;
+    
+    EntryStateTracker(Collection<List<AbstractConfigEntry<?>>> categorizedEntries) {
+        for (List<AbstractConfigEntry<?>> categoryEntries : categorizedEntries) {
+            entries.addAll(categoryEntries);
+        }
+        registerNested();
+    }
+    
+    private void registerNested() {
+        ids.clear();
+        dependents.clear();
+        for (int id = 0; id < entries.size(); id++) {
+            ids.put(entries.get(id), id);
+        }
+        for (int id = 0; id < entries.size(); id++) {
+            AbstractConfigEntry<?> entry = entries.get(id);
+            if (entry.hasErrorSupplier()) {
+                dependents.put(entry, id);
+            }
+            registerNested(entry, id);
+        }
+    }
+    
+    private void registerNested(AbstractConfigEntry<?> entry, int rootId) {
+        List<ReferenceProvider<?>> nestedEntries = entry.getReferenceProviderEntries();
+        if (nestedEntries != null) {
+            for (ReferenceProvider<?> nestedEntry : nestedEntries) {
+                AbstractConfigEntry<?> nested = nestedEntry.provideReferenceEntry();
+                if (ids.putIfAbsent(nested, rootId) == null) {
+                    if (nested.hasErrorSupplier()) {
+                        dependents.put(nested, rootId);
+                    }
+                    registerNested(nested, rootId);
+                }
+            }
+        }
+    }
+    
+    public void invalidate(AbstractConfigEntry<?> entry, boolean valueChanged) {
+        Integer id = ids.get(entry);
+        if (id == null) {
+            // Likely added to a nested list since the entries were registered
+            allDirty = true;
+            nestedDirty = true;
+        } else {
+            dirty.set(id);
+        }
+        if (!valueChanged) return;
+        for (Map.Entry<AbstractConfigEntry<?>, Integer> dependent : dependents.entrySet()) {
+            if (dependent.getKey() != entry) {
+                dependent.getKey().invalidateConfigError();
+                dirty.set(dependent.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Evaluates every entry again on the next query, evaluating the debounced error suppliers right away.
+     */
+    public void settleAll() {
+        if (nestedDirty) {
+            nestedDirty = false;
+            registerNested();
+        }
+        for (AbstractConfigEntry<?> entry : ids.keySet()) {
+            entry.invalidateConfigError();
+            entry.settleConfigError();
+        }
+        allDirty = true;
+    }
+    
+    public boolean isEdited() {
+        update();
+        return editedCount > 0;
+    }
+    
+    public boolean isRequiresRestart() {
+        update();
+        return requiresRestartCount > 0;
+    }
+    
+    public boolean hasErrors() {
+        update();
+        return !errors.isEmpty();
+    }
+    
+    public Collection<Component> getErrors() {
+        update();
+        return Collections.unmodifiableCollection(errors.values());
+    }
+    
+    private void update() {
+        if (allDirty) {
+            allDirty = false;
+            dirty.clear();
+            if (nestedDirty) {
+                nestedDirty = false;
+                registerNested();
+            }
+            for (int id = 0; id < entries.size(); id++) {
+                evaluate(id);
+            }
+        } else if (!dirty.isEmpty()) {
+            for (int id = dirty.nextSetBit(0); id >= 0; id = dirty.nextSetBit(id + 1)) {
+                evaluate(id);
+            }
+            dirty.clear();
+        }
+    }
+    
+    private void evaluate(int id) {
+        AbstractConfigEntry<?> entry = entries.get(id);
+        Optional<Component> error = entry.getConfigError();
+        boolean isEdited = entry.isEdited();
+        boolean isRequiresRestart = error.isEmpty() && isEdited && entry.isRequiresRestart();
+        if (edited.get(id) != isEdited) {
+            edited.set(id, isEdited);
+            editedCount += isEdited ? 1 : -1;
+        }
+        if (requiresRestart.get(id) != isRequiresRestart) {
+            requiresRestart.set(id, isRequiresRestart);
+            requiresRestartCount += isRequiresRestart ? 1 : -1;
+        }
+        if (error.isPresent()) {
+            errors.put(id, error.get());
+        } else {
+            errors.remove(id);
+        }
+    }
+}
@@ -29,6 +29,7 @@ import me.shedaniel.clothconfig2.api.*;
 import me.shedaniel.clothconfig2.api.scroll.ScrollingContainer;
 import me.shedaniel.clothconfig2.gui.entries.EmptyEntry;
 import me.shedaniel.clothconfig2.gui.widget.SearchFieldEntry;
+import me.shedaniel.clothconfig2.impl.ConfigCategoryImpl;
 import me.shedaniel.math.Rectangle;
 import net.minecraft.ChatFormatting;
 import net.minecraft.client.Minecraft;
@@ -103,6 +104,10 @@ public class GlobalizedClothConfigScreen extends AbstractConfigScreen implements
     public GlobalizedClothConfigScreen(Screen parent, Component title, Map<String, ConfigCategory> categoryMap, ResourceLocation backgroundLocation) {
         super(parent, title, backgroundLocation);
         categoryMap.forEach((categoryName, category) -> {
+            // All categories are shown at once, so nothing can be deferred
+            if (category instanceof ConfigCategoryImpl impl) {
+                impl.loadLazyEntries();
+            }
             List<AbstractConfigEntry<?>> entries = Lists.newArrayList();
             for (Object object : category.getEntries()) {
                 AbstractConfigListEntry<?> entry;
@@ -154,16 +159,7 @@ public class GlobalizedClothConfigScreen extends AbstractConfigScreen implements
         addRenderableWidget(exitButton = new Button(0, height - 26, buttonWidths, 20, Component.empty(), button -> saveAll(true)) {
             @Override
             public void render(PoseStack matrices, int mouseX, int mouseY, float delta) {
-                boolean hasErrors = false;
-                label:
-                for (List<AbstractConfigEntry<?>> entries : categorizedEntries.values()) {
-                    for (AbstractConfigEntry<?> entry : entries) {
-                        if (entry.getConfigError().isPresent()) {
-                            hasErrors = true;
-                            break label;
-                        }
-                    }
-                }
+                boolean hasErrors = hasErrors();
                 active = isEdited() && !hasErrors;
                 setMessage(hasErrors ? Component.translatable("text.cloth-config.error_cannot_save") : Component.translatable("text.cloth-config.save_and_done"));
                 super.render(matrices, mouseX, mouseY, delta);
@@ -177,6 +173,17 @@ public class GlobalizedClothConfigScreen extends AbstractConfigScreen implements
         return searchFieldEntry.matchesSearch(tags);
     }
     
+    @Override
+    public boolean matchesSearch(AbstractConfigEntry<?> entry) {
+        return searchFieldEntry.matchesSearch(entry);
+    }
+    
+    @Override
+    public void invalidateSearchResults() {
+        if (searchFieldEntry != null)
+            searchFieldEntry.invalidateSearchIndex();
+    }
+    
     private void buildReferences() {
         categorizedEntries.forEach((categoryText, entries) -> {
             this.references.add(new CategoryReference(categoryText));
@@ -215,7 +222,7 @@ public class GlobalizedClothConfigScreen extends AbstractConfigScreen implements
         listWidget.setLeftPos(sliderPosition);
         listWidget.render(matrices, mouseX, mouseY, delta);
         ScissorsHandler.INSTANCE.scissor(new Rectangle(listWidget.left, listWidget.top, listWidget.width, listWidget.bottom - listWidget.top));
-        for (AbstractConfigEntry<?> child : listWidget.children())
+        for (AbstractConfigEntry<?> child : listWidget.renderedChildren())
             child.lateRender(matrices, mouseX, mouseY, delta);
         ScissorsHandler.INSTANCE.removeLastScissor();
         font.drawShadow(matrices, title.getVisualOrderText(), sliderPosition + (width - sliderPosition) / 2f - font.width(title) / 2f, 12, -1);
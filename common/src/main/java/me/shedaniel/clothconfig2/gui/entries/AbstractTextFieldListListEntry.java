@@ -87,6 +87,7 @@ public abstract class AbstractTextFieldListListEntry<T, C extends AbstractTextFi
             widget.moveCursorToStart();
             widget.setResponder(s -> {
                 widget.setTextColor(getPreferredTextColor());
+                listListEntry.notifyValueChanged();
             });
         }
         
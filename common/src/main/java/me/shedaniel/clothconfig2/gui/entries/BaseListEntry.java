@@ -101,6 +101,8 @@ public abstract class BaseListEntry<T, C extends BaseListCell, SELF extends Base
                 cell.onAdd();
             }
             widgets.addAll(cells);
+            notifyHeightChanged();
+            notifyValueChanged();
         });
         this.widgets.add(resetWidget);
         this.saveCallback = saveConsumer;
@@ -116,6 +118,7 @@ public abstract class BaseListEntry<T, C extends BaseListCell, SELF extends Base
     @Override
     public void setExpanded(boolean expanded) {
         this.expanded = expanded;
+        notifyHeightChanged();
     }
     
     @Override
@@ -339,6 +342,8 @@ public abstract class BaseListEntry<T, C extends BaseListCell, SELF extends Base
                     widgets.add(cell);
                 }
                 cell.onAdd();
+                notifyHeightChanged();
+                notifyValueChanged();
                 Minecraft.getInstance().getSoundManager().play(SimpleSoundInstance.forUI(SoundEvents.UI_BUTTON_CLICK, 1.0F));
                 return true;
             } else if (isDeleteButtonEnabled() && isInsideDelete(double_1, double_2)) {
@@ -348,11 +353,14 @@ public abstract class BaseListEntry<T, C extends BaseListCell, SELF extends Base
                     //noinspection SuspiciousMethodCalls
                     cells.remove(focused);
                     widgets.remove(focused);
+                    notifyHeightChanged();
+                    notifyValueChanged();
                     Minecraft.getInstance().getSoundManager().play(SimpleSoundInstance.forUI(SoundEvents.UI_BUTTON_CLICK, 1.0F));
                 }
                 return true;
             } else if (rectangle.contains(double_1, double_2)) {
                 expanded = !expanded;
+                notifyHeightChanged();
                 Minecraft.getInstance().getSoundManager().play(SimpleSoundInstance.forUI(SoundEvents.UI_BUTTON_CLICK, 1.0F));
                 return true;
             }
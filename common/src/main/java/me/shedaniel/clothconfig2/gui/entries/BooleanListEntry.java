@@ -69,9 +69,11 @@ public class BooleanListEntry extends TooltipListEntry<Boolean> {
         this.bool = new AtomicBoolean(bool);
         this.buttonWidget = new Button(0, 0, 150, 20, Component.empty(), widget -> {
             BooleanListEntry.this.bool.set(!BooleanListEntry.this.bool.get());
+            notifyValueChanged();
         });
         this.resetButton = new Button(0, 0, Minecraft.getInstance().font.width(resetButtonKey) + 6, 20, resetButtonKey, widget -> {
             BooleanListEntry.this.bool.set(defaultValue.get());
+            notifyValueChanged();
         });
         this.saveCallback = saveConsumer;
         this.widgets = Lists.newArrayList(buttonWidget, resetButton);
@@ -87,6 +89,11 @@ public class BooleanListEntry extends TooltipListEntry<Boolean> {
         return bool.get();
     }
     
+    @Override
+    protected Object getErrorCacheKey() {
+        return bool.get();
+    }
+    
     @Override
     public Optional<Boolean> getDefaultValue() {
         return defaultValue == null ? Optional.empty() : Optional.ofNullable(defaultValue.get());
@@ -69,6 +69,7 @@ public class DropdownBoxEntry<T> extends TooltipListEntry<T> {
         this.saveCallback = saveConsumer;
         this.resetButton = new Button(0, 0, Minecraft.getInstance().font.width(resetButtonKey) + 6, 20, resetButtonKey, widget -> {
             selectionElement.topRenderer.setValue(defaultValue.get());
+            notifyValueChanged();
         });
         this.selectionElement = new SelectionElement<>(this, new Rectangle(0, 0, 150, 20), new DefaultDropdownMenuElement<>(selections == null ? ImmutableList.of() : ImmutableList.copyOf(selections)), topRenderer, cellCreator);
     }
@@ -643,6 +644,7 @@ public class DropdownBoxEntry<T> extends TooltipListEntry<T> {
             boolean b = rendering && mouseX >= x && mouseX <= x + width && mouseY >= y && mouseY <= y + height;
             if (b) {
                 getEntry().selectionElement.topRenderer.setValue(r);
+                getEntry().notifyValueChanged();
                 getEntry().selectionElement.setFocused(null);
                 getEntry().selectionElement.dontReFocus = true;
                 return true;
@@ -696,6 +698,7 @@ public class DropdownBoxEntry<T> extends TooltipListEntry<T> {
             for (SelectionCellElement<R> child : children) {
                 if (child.getSelection() != null) {
                     setValue(child.getSelection());
+                    getParent().notifyValueChanged();
                     getParent().selectionElement.setFocused(null);
                     break;
                 }
@@ -741,6 +744,10 @@ public class DropdownBoxEntry<T> extends TooltipListEntry<T> {
             textFieldWidget.setBordered(false);
             textFieldWidget.setMaxLength(999999);
             textFieldWidget.setValue(toTextFunction.apply(value).getString());
+            textFieldWidget.setResponder(s -> {
+                if (getParent() != null)
+                    getParent().notifyValueChanged();
+            });
         }
         
         @Override
@@ -59,11 +59,13 @@ public class FloatListEntry extends AbstractNumberListEntry<Float> {
     
     public FloatListEntry setMinimum(float minimum) {
         this.minimum = minimum;
+        invalidateConfigError();
         return this;
     }
     
     public FloatListEntry setMaximum(float maximum) {
         this.maximum = maximum;
+        invalidateConfigError();
         return this;
     }
     
@@ -59,11 +59,13 @@ public class IntegerListEntry extends AbstractNumberListEntry<Integer> {
     
     public IntegerListEntry setMaximum(int maximum) {
         this.maximum = maximum;
+        invalidateConfigError();
         return this;
     }
     
     public IntegerListEntry setMinimum(int minimum) {
         this.minimum = minimum;
+        invalidateConfigError();
         return this;
     }
     
@@ -98,11 +98,17 @@ public class IntegerSliderEntry extends TooltipListEntry<Integer> {
         return value.get();
     }
     
+    @Override
+    protected Object getErrorCacheKey() {
+        return value.get();
+    }
+    
     @Deprecated
     public void setValue(int value) {
         sliderWidget.setValue((Mth.clamp(value, minimum, maximum) - minimum) / (double) Math.abs(maximum - minimum));
         this.value.set(Math.min(Math.max(value, minimum), maximum));
         sliderWidget.updateMessage();
+        notifyValueChanged();
     }
     
     @Override
@@ -171,6 +177,7 @@ public class IntegerSliderEntry extends TooltipListEntry<Integer> {
         @Override
         protected void applyValue() {
             IntegerSliderEntry.this.value.set((int) (minimum + Math.abs(maximum - minimum) * value));
+            notifyValueChanged();
         }
         
         @Override
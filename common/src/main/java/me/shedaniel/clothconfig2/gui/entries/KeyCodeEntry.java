@@ -63,6 +63,7 @@ public class KeyCodeEntry extends TooltipListEntry<ModifierKeyCode> {
         this.resetButton = new Button(0, 0, Minecraft.getInstance().font.width(resetButtonKey) + 6, 20, resetButtonKey, widget -> {
             KeyCodeEntry.this.value = getDefaultValue().orElse(null).copy();
             getConfigScreen().setFocusedBinding(null);
+            notifyValueChanged();
         });
         this.saveCallback = saveConsumer;
         this.widgets = Lists.newArrayList(buttonWidget, resetButton);
@@ -104,6 +105,7 @@ public class KeyCodeEntry extends TooltipListEntry<ModifierKeyCode> {
     
     public void setValue(ModifierKeyCode value) {
         this.value = value;
+        notifyValueChanged();
     }
     
     @Override
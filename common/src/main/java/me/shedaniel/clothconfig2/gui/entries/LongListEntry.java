@@ -59,11 +59,13 @@ public class LongListEntry extends AbstractNumberListEntry<Long> {
     
     public LongListEntry setMinimum(long minimum) {
         this.minimum = minimum;
+        invalidateConfigError();
         return this;
     }
     
     public LongListEntry setMaximum(long maximum) {
         this.maximum = maximum;
+        invalidateConfigError();
         return this;
     }
     
@@ -98,11 +98,17 @@ public class LongSliderEntry extends TooltipListEntry<Long> {
         return value.get();
     }
     
+    @Override
+    protected Object getErrorCacheKey() {
+        return value.get();
+    }
+    
     @Deprecated
     public void setValue(long value) {
         sliderWidget.setValue((Mth.clamp(value, minimum, maximum) - minimum) / (double) Math.abs(maximum - minimum));
         this.value.set(Math.min(Math.max(value, minimum), maximum));
         sliderWidget.updateMessage();
+        notifyValueChanged();
     }
     
     @Override
@@ -171,6 +177,7 @@ public class LongSliderEntry extends TooltipListEntry<Long> {
         @Override
         protected void applyValue() {
             LongSliderEntry.this.value.set((long) (minimum + Math.abs(maximum - minimum) * value));
+            notifyValueChanged();
         }
         
         @Override
@@ -222,6 +222,7 @@ public class MultiElementListEntry<T> extends TooltipListEntry<T> implements Exp
     @Override
     public void setExpanded(boolean expanded) {
         this.expanded = expanded;
+        notifyHeightChanged();
     }
     
     public class CategoryLabelWidget implements GuiEventListener, NarratableEntry {
@@ -232,6 +233,7 @@ public class MultiElementListEntry<T> extends TooltipListEntry<T> implements Exp
         public boolean mouseClicked(double double_1, double double_2, int int_1) {
             if (rectangle.contains(double_1, double_2)) {
                 expanded = !expanded;
+                notifyHeightChanged();
                 Minecraft.getInstance().getSoundManager().play(SimpleSoundInstance.forUI(SoundEvents.UI_BUTTON_CLICK, 1.0F));
                 return isHovered = true;
             }
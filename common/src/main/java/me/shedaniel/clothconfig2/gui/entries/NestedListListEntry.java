@@ -137,6 +137,7 @@ public final class NestedListListEntry<T, INNER extends AbstractConfigListEntry<
             super.onAdd();
             listListEntry.referencableEntries.add(nestedEntry);
             listListEntry.requestReferenceRebuilding();
+            listListEntry.notifySearchTagsChanged();
         }
         
         @Override
@@ -144,6 +145,7 @@ public final class NestedListListEntry<T, INNER extends AbstractConfigListEntry<
             super.onDelete();
             listListEntry.referencableEntries.remove(nestedEntry);
             listListEntry.requestReferenceRebuilding();
+            listListEntry.notifySearchTagsChanged();
         }
         
         @Override
@@ -87,9 +87,11 @@ public class SelectionListEntry<T> extends TooltipListEntry<T> {
         this.buttonWidget = new Button(0, 0, 150, 20, Component.empty(), widget -> {
             SelectionListEntry.this.index.incrementAndGet();
             SelectionListEntry.this.index.compareAndSet(SelectionListEntry.this.values.size(), 0);
+            notifyValueChanged();
         });
         this.resetButton = new Button(0, 0, Minecraft.getInstance().font.width(resetButtonKey) + 6, 20, resetButtonKey, widget -> {
             SelectionListEntry.this.index.set(getDefaultIndex());
+            notifyValueChanged();
         });
         this.saveCallback = saveConsumer;
         this.widgets = Lists.newArrayList(buttonWidget, resetButton);
@@ -106,6 +108,11 @@ public class SelectionListEntry<T> extends TooltipListEntry<T> {
         return this.values.get(this.index.get());
     }
     
+    @Override
+    protected Object getErrorCacheKey() {
+        return index.get();
+    }
+    
     @Override
     public Optional<T> getDefaultValue() {
         return defaultValue == null ? Optional.empty() : Optional.ofNullable(defaultValue.get());
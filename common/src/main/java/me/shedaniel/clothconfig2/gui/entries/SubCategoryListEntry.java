@@ -75,6 +75,7 @@ public class SubCategoryListEntry extends TooltipListEntry<List<AbstractConfigLi
     @Override
     public void setExpanded(boolean expanded) {
         this.expanded = expanded;
+        notifyHeightChanged();
     }
     
     @Override
@@ -104,7 +105,7 @@ public class SubCategoryListEntry extends TooltipListEntry<List<AbstractConfigLi
             @Override
             public Iterator<AbstractConfigListEntry> iterator() {
                 return Iterators.filter(entries.iterator(), entry -> {
-                    return getConfigScreen() != null && getConfigScreen().matchesSearch(entry.getSearchTags());
+                    return getConfigScreen() != null && getConfigScreen().matchesSearch(entry);
                 });
             }
             
@@ -148,7 +149,7 @@ public class SubCategoryListEntry extends TooltipListEntry<List<AbstractConfigLi
     @Override
     public void updateSelected(boolean isSelected) {
         for (AbstractConfigListEntry<?> entry : entries) {
-            entry.updateSelected(expanded && isSelected && getFocused() == entry && getConfigScreen().matchesSearch(entry.getSearchTags()));
+            entry.updateSelected(expanded && isSelected && getFocused() == entry && getConfigScreen().matchesSearch(entry));
         }
     }
     
@@ -249,6 +250,7 @@ public class SubCategoryListEntry extends TooltipListEntry<List<AbstractConfigLi
         public boolean mouseClicked(double double_1, double double_2, int int_1) {
             if (rectangle.contains(double_1, double_2)) {
                 expanded = !expanded;
+                notifyHeightChanged();
                 Minecraft.getInstance().getSoundManager().play(SimpleSoundInstance.forUI(SoundEvents.UI_BUTTON_CLICK, 1.0F));
                 return isHovered = true;
             }
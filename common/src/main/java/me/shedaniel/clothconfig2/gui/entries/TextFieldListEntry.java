@@ -80,6 +80,7 @@ public abstract class TextFieldListEntry<T> extends TooltipListEntry<T> {
         };
         textFieldWidget.setMaxLength(999999);
         textFieldWidget.setValue(String.valueOf(original));
+        textFieldWidget.setResponder(s -> notifyValueChanged());
         this.resetButton = new Button(0, 0, Minecraft.getInstance().font.width(resetButtonKey) + 6, 20, resetButtonKey, widget -> {
             TextFieldListEntry.this.textFieldWidget.setValue(String.valueOf(defaultValue.get()));
         });
@@ -91,6 +92,11 @@ public abstract class TextFieldListEntry<T> extends TooltipListEntry<T> {
         return isChanged(original, textFieldWidget.getValue());
     }
     
+    @Override
+    protected Object getErrorCacheKey() {
+        return textFieldWidget.getValue();
+    }
+    
     protected boolean isChanged(T original, String s) {
         return !String.valueOf(original).equals(s);
     }
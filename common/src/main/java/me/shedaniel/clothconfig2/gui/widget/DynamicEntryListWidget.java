@@ -69,6 +69,15 @@ public abstract class DynamicEntryListWidget<E extends DynamicEntryListWidget.En
     protected E hoveredItem;
     protected E selectedItem;
     protected ResourceLocation backgroundLocation;
+    protected int renderOverflowMargin;
+    private int[] rowOffsets = new int[1];
+    private int[] rowOverflows = new int[0];
+    private int rowsOverflowBottom;
+    private int rowsMaxOverflow;
+    private int rowOffsetsItemWidth = -1;
+    private boolean rowOffsetsDirty = true;
+    private int renderedFrom, renderedTo;
+    private double rowHeightsVerifiedScroll = Double.NaN;
     
     public DynamicEntryListWidget(Minecraft client, int width, int height, int top, int bottom, ResourceLocation backgroundLocation) {
         this.client = client;
@@ -172,16 +181,7 @@ public abstract class DynamicEntryListWidget<E extends DynamicEntryListWidget.En
         int minX = listMiddleX - this.getItemWidth() / 2;
         int maxX = listMiddleX + this.getItemWidth() / 2;
         int currentY = Mth.floor(mouseY - (double) this.top) - this.headerHeight + (int) this.getScroll() - 4;
-        int itemY = 0;
-        int itemIndex = -1;
-        for (int i = 0; i < children().size(); i++) {
-            E item = getItem(i);
-            itemY += item.getItemHeight();
-            if (itemY > currentY) {
-                itemIndex = i;
-                break;
-            }
-        }
+        int itemIndex = this.getRowIndexAt(currentY);
         return mouseX < (double) this.getScrollbarPosition() && mouseX >= minX && mouseX <= maxX && itemIndex >= 0 && currentY >= 0 && itemIndex < this.getItemCount() ? this.children().get(itemIndex) : null;
     }
     
@@ -199,17 +199,101 @@ public abstract class DynamicEntryListWidget<E extends DynamicEntryListWidget.En
         this.right = left + this.width;
     }
     
-    protected int getMaxScrollPosition() {
-        List<Integer> list = new ArrayList<>();
-        int i = headerHeight;
-        for (E entry : children()) {
-            i += entry.getItemHeight();
-            if (entry.getMorePossibleHeight() >= 0) {
-                list.add(i + entry.getMorePossibleHeight());
+    /**
+     * Marks the cached row offsets as stale, they will be rebuilt on the next layout query.
+     * <p>
+     * This should be called whenever the height of an entry changes, or when the list
+     * returned by {@link #children()} changes without going through this widget.
+     */
+    public void invalidateItemHeights() {
+        this.rowOffsetsDirty = true;
+    }
+    
+    private int[] getRowOffsets() {
+        List<E> children = this.children();
+        int itemWidth = this.getItemWidth();
+        int size = children.size();
+        if (rowOffsetsDirty || rowOffsetsItemWidth != itemWidth || rowOffsets.length != size + 1) {
+            int[] offsets = rowOffsets.length == size + 1 ? rowOffsets : new int[size + 1];
+            int[] overflows = rowOverflows.length == size ? rowOverflows : new int[size];
+            int overflowBottom = 0;
+            int maxOverflow = 0;
+            int i = 0;
+            offsets[0] = 0;
+            for (E item : children) {
+                offsets[i + 1] = offsets[i] + item.getItemHeight();
+                overflows[i] = item.getMorePossibleHeight();
+                if (overflows[i] >= 0) {
+                    overflowBottom = Math.max(overflowBottom, offsets[i + 1] + overflows[i]);
+                    maxOverflow = Math.max(maxOverflow, overflows[i]);
+                }
+                i++;
             }
+            this.rowOffsets = offsets;
+            this.rowOverflows = overflows;
+            this.rowsOverflowBottom = overflowBottom;
+            this.rowsMaxOverflow = maxOverflow;
+            this.rowOffsetsItemWidth = itemWidth;
+            this.rowOffsetsDirty = false;
         }
-        list.add(i);
-        return list.stream().max(Integer::compare).orElse(0);
+        return rowOffsets;
+    }
+    
+    /**
+     * Returns the total height of the rows before the given index, excluding the header.
+     */
+    protected int getRowOffset(int index) {
+        int[] offsets = this.getRowOffsets();
+        return offsets[Mth.clamp(index, 0, offsets.length - 1)];
+    }
+    
+    /**
+     * Returns the index of the row containing the given offset from the top of the first row,
+     * or {@code -1} if no row contains it.
+     */
+    protected int getRowIndexAt(int offset) {
+        int[] offsets = this.getRowOffsets();
+        int size = offsets.length - 1;
+        if (offset < 0 || offset >= offsets[size])
+            return -1;
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (offsets[mid + 1] > offset) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+    
+    protected int getMaxScrollPosition() {
+        int[] offsets = this.getRowOffsets();
+        return headerHeight + Math.max(offsets[offsets.length - 1], rowsOverflowBottom);
+    }
+    
+    public int getRenderOverflowMargin() {
+        return renderOverflowMargin;
+    }
+    
+    /**
+     * Sets the extra distance above and below the list bounds in which entries are still rendered,
+     * for entries that draw outside of their row in {@code lateRender} without reporting it
+     * through {@link Entry#getMorePossibleHeight()}.
+     */
+    public void setRenderOverflowMargin(int renderOverflowMargin) {
+        this.renderOverflowMargin = Math.max(0, renderOverflowMargin);
+    }
+    
+    /**
+     * Returns the entries rendered in the last frame, the entries outside of the list bounds are culled.
+     */
+    public List<E> renderedChildren() {
+        List<E> children = this.children();
+        int to = Math.min(renderedTo, children.size());
+        return children.subList(Math.min(renderedFrom, to), to);
     }
     
     protected void clickedHeader(int int_1, int int_2) {
@@ -313,8 +397,7 @@ public abstract class DynamicEntryListWidget<E extends DynamicEntryListWidget.En
     
     protected void centerScrollOn(E item) {
         double d = (this.bottom - this.top) / -2d;
-        for (int i = 0; i < this.children().indexOf(item) && i < this.getItemCount(); i++)
-            d += getItem(i).getItemHeight();
+        d += this.getRowOffset(this.children().indexOf(item));
         this.capYPosition(d);
     }
     
@@ -449,16 +532,40 @@ public abstract class DynamicEntryListWidget<E extends DynamicEntryListWidget.En
     
     protected void renderList(PoseStack matrices, int startX, int startY, int int_3, int int_4, float float_1) {
         hoveredItem = this.isMouseOver(int_3, int_4) ? this.getItemAtPosition(int_3, int_4) : null;
-        int itemCount = this.getItemCount();
+        int[] offsets = this.getRowOffsets();
+        int itemCount = offsets.length - 1;
+        int rowsTop = startY + headerHeight;
         Tesselator tesselator = Tesselator.getInstance();
         BufferBuilder buffer = tesselator.getBuilder();
         
-        for (int renderIndex = 0; renderIndex < itemCount; ++renderIndex) {
+        // Only render the rows intersecting the list bounds, extended upwards by the largest overflow
+        // so that entries drawing below their row (e.g. open dropdowns) are still rendered
+        int firstIndex = this.getRowIndexAt(Math.max(0, this.top - rowsTop - Math.max(renderOverflowMargin, rowsMaxOverflow)));
+        double scroll = this.getScroll();
+        if (scroll != rowHeightsVerifiedScroll) {
+            // Culled rows above the list are not checked below, re-check them once the list moves
+            // so that unreported height changes do not leave the visible rows at stale positions
+            this.rowHeightsVerifiedScroll = scroll;
+            if (this.verifyRowHeights(0, firstIndex < 0 ? itemCount : firstIndex)) {
+                offsets = this.getRowOffsets();
+                itemCount = offsets.length - 1;
+                firstIndex = this.getRowIndexAt(Math.max(0, this.top - rowsTop - Math.max(renderOverflowMargin, rowsMaxOverflow)));
+            }
+        }
+        int renderIndex = firstIndex < 0 ? itemCount : firstIndex;
+        this.renderedFrom = renderIndex;
+        for (; renderIndex < itemCount; ++renderIndex) {
+            int itemY = rowsTop + offsets[renderIndex];
+            if (itemY >= this.bottom + renderOverflowMargin)
+                break;
             E item = this.getItem(renderIndex);
-            int itemY = startY + headerHeight;
-            for (int i = 0; i < children().size() && i < renderIndex; i++)
-                itemY += children().get(i).getItemHeight();
-            int itemHeight = item.getItemHeight() - 4;
+            int rawItemHeight = item.getItemHeight();
+            if (offsets[renderIndex + 1] - offsets[renderIndex] != rawItemHeight || rowOverflows[renderIndex] != item.getMorePossibleHeight()) {
+                // The entry changed its height without reporting it, rebuild the offsets for the rows below
+                this.invalidateItemHeights();
+                offsets = this.getRowOffsets();
+            }
+            int itemHeight = rawItemHeight - 4;
             int itemWidth = this.getItemWidth();
             int itemMinX, itemMaxX;
             if (this.selectionVisible && this.isSelected(renderIndex)) {
@@ -481,10 +588,28 @@ public abstract class DynamicEntryListWidget<E extends DynamicEntryListWidget.En
                 RenderSystem.enableTexture();
             }
             
-            int y = this.getRowTop(renderIndex);
             int x = this.getRowLeft();
-            renderItem(matrices, item, renderIndex, y, x, itemWidth, itemHeight, int_3, int_4, Objects.equals(hoveredItem, item), float_1);
+            renderItem(matrices, item, renderIndex, itemY, x, itemWidth, itemHeight, int_3, int_4, Objects.equals(hoveredItem, item), float_1);
+        }
+        this.renderedTo = renderIndex;
+    }
+    
+    /**
+     * Rebuilds the row offsets if any row in {@code [from, to)} changed its height without reporting it.
+     *
+     * @return whether the offsets were rebuilt
+     */
+    private boolean verifyRowHeights(int from, int to) {
+        int[] offsets = this.getRowOffsets();
+        for (int i = from; i < to; i++) {
+            E item = this.getItem(i);
+            if (offsets[i + 1] - offsets[i] != item.getItemHeight() || rowOverflows[i] != item.getMorePossibleHeight()) {
+                this.invalidateItemHeights();
+                this.getRowOffsets();
+                return true;
+            }
         }
+        return false;
     }
     
     protected void renderItem(PoseStack matrices, E item, int index, int y, int x, int entryWidth, int entryHeight, int mouseX, int mouseY, boolean isSelected, float delta) {
@@ -496,10 +621,7 @@ public abstract class DynamicEntryListWidget<E extends DynamicEntryListWidget.En
     }
     
     protected int getRowTop(int index) {
-        int integer = top + 4 - (int) this.getScroll() + headerHeight;
-        for (int i = 0; i < children().size() && i < index; i++)
-            integer += children().get(i).getItemHeight();
-        return integer;
+        return top + 4 - (int) this.getScroll() + headerHeight + this.getRowOffset(index);
     }
     
     protected boolean isFocused() {
@@ -566,6 +688,14 @@ public abstract class DynamicEntryListWidget<E extends DynamicEntryListWidget.En
         
         public abstract int getItemHeight();
         
+        /**
+         * Notifies the parent list that {@link #getItemHeight()} has changed, so its row layout is recomputed.
+         */
+        protected void notifyHeightChanged() {
+            if (this.parent != null)
+                this.parent.invalidateItemHeights();
+        }
+        
         @Deprecated
         public int getMorePossibleHeight() {
             return -1;
@@ -605,6 +735,7 @@ public abstract class DynamicEntryListWidget<E extends DynamicEntryListWidget.En
         @Override
         public void clear() {
             items.clear();
+            invalidateItemHeights();
         }
         
         @Override
@@ -621,6 +752,7 @@ public abstract class DynamicEntryListWidget<E extends DynamicEntryListWidget.En
         public E set(int int_1, E itemListWidget$Item_1) {
             E itemListWidget$Item_2 = this.items.set(int_1, itemListWidget$Item_1);
             itemListWidget$Item_1.parent = DynamicEntryListWidget.this;
+            invalidateItemHeights();
             return itemListWidget$Item_2;
         }
         
@@ -628,10 +760,12 @@ public abstract class DynamicEntryListWidget<E extends DynamicEntryListWidget.En
         public void add(int int_1, E itemListWidget$Item_1) {
             this.items.add(int_1, itemListWidget$Item_1);
             itemListWidget$Item_1.parent = DynamicEntryListWidget.this;
+            invalidateItemHeights();
         }
         
         @Override
         public E remove(int int_1) {
+            invalidateItemHeights();
             return this.items.remove(int_1);
         }
     }
@@ -19,7 +19,6 @@
 
 package me.shedaniel.clothconfig2.gui.widget;
 
-import com.google.common.collect.Iterators;
 import com.mojang.blaze3d.vertex.PoseStack;
 import me.shedaniel.clothconfig2.api.AbstractConfigEntry;
 import me.shedaniel.clothconfig2.api.AbstractConfigListEntry;
@@ -31,65 +30,58 @@ import net.minecraft.client.gui.components.events.GuiEventListener;
 import net.minecraft.client.gui.narration.NarratableEntry;
 import net.minecraft.network.chat.Component;
 import net.minecraft.util.Mth;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
 public class SearchFieldEntry extends AbstractConfigListEntry<Object> {
     private final EditBox editBox;
+    private final ClothConfigScreen.ListWidget<AbstractConfigEntry<AbstractConfigEntry<?>>> listWidget;
+    private final SearchIndex searchIndex = new SearchIndex();
     private String[] lowerCases;
+    @Nullable
+    private SearchResultList searchResults;
+    private boolean searchResultsDirty = true;
     
     public SearchFieldEntry(ConfigScreen screen, ClothConfigScreen.ListWidget<AbstractConfigEntry<AbstractConfigEntry<?>>> listWidget) {
         super(Component.empty(), false);
+        this.listWidget = listWidget;
         this.editBox = new EditBox(Minecraft.getInstance().font, 0, 0, 100, 18, Component.empty());
         this.lowerCases = editBox.getValue().isEmpty() ? new String[0] : editBox.getValue().toLowerCase(Locale.ROOT).split(" ");
         this.editBox.setResponder(s -> {
             lowerCases = s.isEmpty() ? new String[0] : s.toLowerCase(Locale.ROOT).split(" ");
+            searchIndex.setQuery(lowerCases);
+            invalidateSearchResults();
         });
         listWidget.entriesTransformer = entries -> {
-            return new AbstractList<AbstractConfigEntry<AbstractConfigEntry<?>>>() {
-                @Override
-                public Iterator<AbstractConfigEntry<AbstractConfigEntry<?>>> iterator() {
-                    if (editBox.getValue().isEmpty())
-                        return entries.iterator();
-                    return Iterators.filter(entries.iterator(), entry -> {
-                        return screen.matchesSearch(entry.getSearchTags());
-                    });
-                }
-                
-                @Override
-                public AbstractConfigEntry<AbstractConfigEntry<?>> get(int index) {
-                    return Iterators.get(iterator(), index);
-                }
-                
-                @Override
-                public void add(int index, AbstractConfigEntry<AbstractConfigEntry<?>> element) {
-                    entries.add(index, element);
-                }
-                
-                @Override
-                public AbstractConfigEntry<AbstractConfigEntry<?>> remove(int index) {
-                    AbstractConfigEntry<AbstractConfigEntry<?>> entry = get(index);
-                    return entries.remove(entry) ? entry : null;
-                }
-                
-                @Override
-                public boolean remove(Object o) {
-                    return entries.remove(o);
-                }
-                
-                @Override
-                public void clear() {
-                    entries.clear();
-                }
-                
-                @Override
-                public int size() {
-                    return Iterators.size(iterator());
-                }
-            };
+            if (searchResults == null || searchResults.entries != entries) {
+                searchResults = new SearchResultList(entries);
+            }
+            return searchResults;
         };
     }
     
+    /**
+     * Discards the materialized search results, they will be filtered again on the next access.
+     * This is called when the query changes, or when the search tags of an entry change.
+     */
+    public void invalidateSearchResults() {
+        this.searchResultsDirty = true;
+        this.listWidget.invalidateItemHeights();
+    }
+    
+    /**
+     * Discards the search index, called when the search tags of an entry change.
+     */
+    public void invalidateSearchIndex() {
+        this.searchIndex.invalidate();
+        invalidateSearchResults();
+    }
+    
+    public boolean matchesSearch(AbstractConfigEntry<?> entry) {
+        return searchIndex.matches(entry);
+    }
+    
     public boolean matchesSearch(Iterator<String> tags) {
         if (lowerCases.length == 0) return true;
         if (!tags.hasNext()) return true;
@@ -139,4 +131,72 @@ public class SearchFieldEntry extends AbstractConfigListEntry<Object> {
     public List<? extends GuiEventListener> children() {
         return List.of(editBox);
     }
+    
+    private class SearchResultList extends AbstractList<AbstractConfigEntry<AbstractConfigEntry<?>>> {
+        private final List<AbstractConfigEntry<AbstractConfigEntry<?>>> entries;
+        private List<AbstractConfigEntry<AbstractConfigEntry<?>>> results = Collections.emptyList();
+        private int resultsSourceSize = -1;
+        
+        private SearchResultList(List<AbstractConfigEntry<AbstractConfigEntry<?>>> entries) {
+            this.entries = entries;
+        }
+        
+        private List<AbstractConfigEntry<AbstractConfigEntry<?>>> results() {
+            if (editBox.getValue().isEmpty())
+                return entries;
+            if (searchResultsDirty || resultsSourceSize != entries.size()) {
+                // Replace instead of clearing, so iterations over the previous results are not affected
+                List<AbstractConfigEntry<AbstractConfigEntry<?>>> results = new ArrayList<>();
+                for (AbstractConfigEntry<AbstractConfigEntry<?>> entry : entries) {
+                    if (matchesSearch(entry)) {
+                        results.add(entry);
+                    }
+                }
+                this.results = results;
+                resultsSourceSize = entries.size();
+                searchResultsDirty = false;
+            }
+            return results;
+        }
+        
+        @Override
+        public Iterator<AbstractConfigEntry<AbstractConfigEntry<?>>> iterator() {
+            return results().iterator();
+        }
+        
+        @Override
+        public AbstractConfigEntry<AbstractConfigEntry<?>> get(int index) {
+            return results().get(index);
+        }
+        
+        @Override
+        public void add(int index, AbstractConfigEntry<AbstractConfigEntry<?>> element) {
+            entries.add(index, element);
+            invalidateSearchResults();
+        }
+        
+        @Override
+        public AbstractConfigEntry<AbstractConfigEntry<?>> remove(int index) {
+            AbstractConfigEntry<AbstractConfigEntry<?>> entry = get(index);
+            return remove(entry) ? entry : null;
+        }
+        
+        @Override
+        public boolean remove(Object o) {
+            boolean removed = entries.remove(o);
+            invalidateSearchResults();
+            return removed;
+        }
+        
+        @Override
+        public void clear() {
+            entries.clear();
+            invalidateSearchResults();
+        }
+        
+        @Override
+        public int size() {
+            return results().size();
+        }
+    }
 }
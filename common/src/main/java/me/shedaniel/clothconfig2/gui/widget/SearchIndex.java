@@ -0,0 +1,225 @@
+/*
+ * This file is part of Cloth Config.
+ * Copyright (C) 2020 - 2021 shedaniel
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package me.shedaniel.clothconfig2.gui.widget;
+
+import me.shedaniel.clothconfig2.api.AbstractConfigEntry;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.Minecraft;
+
+import java.util.*;
+
+/**
+ * An inverted index from lowercased search tags to the entries containing them.
+ * <p>
+ * Every tag is split into its n-grams of up to {@value #GRAM_LENGTH} characters, which map to the tags containing them.
+ * A query word is looked up by intersecting the postings of its n-grams, only the tags left are checked for the whole word.
+ * Entries are registered the first time they are matched, every registration updates the matches
+ * of the current query in place. A word extending a previous word is also intersected with the tags the previous word
+ * matched, so the matches narrow down while typing.
+ */
+@Environment(EnvType.CLIENT)
+final class SearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private final Map<String, Integer> tokenIds = new HashMap<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<BitSet> tokenEntries = new ArrayList<>();
+    private final Map<String, BitSet> gramTokens = new HashMap<>();
+    private final Map<AbstractConfigEntry<?>, Integer> entryIds = new IdentityHashMap<>();
+    private final BitSet untaggedEntries = new BitSet();
+    private String[] words = new String[0];
+    private Map<String, WordMatch> wordMatches = Collections.emptyMap();
+    private final BitSet matches = new BitSet();
+    private String language;
+    
+    public void setQuery(String[] words) {
+        checkLanguage();
+        Map<String, WordMatch> previous = this.wordMatches;
+        Map<String, WordMatch> current = new HashMap<>();
+        for (String word : words) {
+            if (!current.containsKey(word)) {
+                current.put(word, matchWord(word, previous));
+            }
+        }
+        this.words = words;
+        this.wordMatches = current;
+        updateMatches();
+    }
+    
+    public boolean matches(AbstractConfigEntry<?> entry) {
+        checkLanguage();
+        if (words.length == 0) return true;
+        return matches.get(register(entry));
+    }
+    
+    public void invalidate() {
+        tokenIds.clear();
+        tokens.clear();
+        tokenEntries.clear();
+        gramTokens.clear();
+        entryIds.clear();
+        untaggedEntries.clear();
+        matches.clear();
+        // No tags are indexed anymore, so the current words match nothing until entries are registered again
+        Map<String, WordMatch> current = new HashMap<>();
+        for (String word : words) {
+            current.put(word, new WordMatch(word, new BitSet(), new BitSet()));
+        }
+        wordMatches = current;
+    }
+    
+    private void checkLanguage() {
+        String language = Minecraft.getInstance().options.languageCode;
+        if (!Objects.equals(this.language, language)) {
+            this.language = language;
+            invalidate();
+        }
+    }
+    
+    private WordMatch matchWord(String word, Map<String, WordMatch> previous) {
+        BitSet candidates = findCandidates(word);
+        // A word containing a previous word can only match the tags the previous word matched
+        for (WordMatch match : previous.values()) {
+            if (word.contains(match.word)) {
+                candidates.and(match.tokens);
+            }
+        }
+        // The postings of a word no longer than an n-gram are exact, longer words may match the n-grams out of order
+        boolean exact = word.length() <= GRAM_LENGTH;
+        BitSet matchedTokens = new BitSet();
+        BitSet matchedEntries = new BitSet();
+        for (int token = candidates.nextSetBit(0); token >= 0; token = candidates.nextSetBit(token + 1)) {
+            if (exact || tokens.get(token).contains(word)) {
+                matchedTokens.set(token);
+                matchedEntries.or(tokenEntries.get(token));
+            }
+        }
+        return new WordMatch(word, matchedTokens, matchedEntries);
+    }
+    
+    /**
+     * Returns the tags containing every n-gram of the word.
+     */
+    private BitSet findCandidates(String word) {
+        if (word.isEmpty()) {
+            BitSet all = new BitSet();
+            all.set(0, tokens.size());
+            return all;
+        }
+        if (word.length() <= GRAM_LENGTH) {
+            BitSet postings = gramTokens.get(word);
+            return postings == null ? new BitSet() : (BitSet) postings.clone();
+        }
+        BitSet candidates = null;
+        for (int i = 0; i + GRAM_LENGTH <= word.length(); i++) {
+            BitSet postings = gramTokens.get(word.substring(i, i + GRAM_LENGTH));
+            if (postings == null) {
+                return new BitSet();
+            }
+            if (candidates == null) {
+                candidates = (BitSet) postings.clone();
+            } else {
+                candidates.and(postings);
+            }
+            if (candidates.isEmpty()) break;
+        }
+        return candidates;
+    }
+    
+    private void indexGrams(String tag, int tokenId) {
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= tag.length(); i++) {
+                gramTokens.computeIfAbsent(tag.substring(i, i + length), gram -> new BitSet()).set(tokenId);
+            }
+        }
+    }
+    
+    private void updateMatches() {
+        matches.clear();
+        boolean first = true;
+        for (WordMatch match : wordMatches.values()) {
+            if (first) {
+                matches.or(match.entries);
+                first = false;
+            } else {
+                matches.and(match.entries);
+            }
+        }
+        matches.or(untaggedEntries);
+    }
+    
+    private int register(AbstractConfigEntry<?> entry) {
+        Integer id = entryIds.get(entry);
+        if (id != null) return id;
+        int entryId = entryIds.size();
+        entryIds.put(entry, entryId);
+        Iterator<String> tags = entry.getSearchTags();
+        if (!tags.hasNext()) {
+            untaggedEntries.set(entryId);
+            matches.set(entryId);
+            return entryId;
+        }
+        boolean matchesAll = true;
+        Set<WordMatch> matchedWords = new HashSet<>();
+        while (tags.hasNext()) {
+            String tag = tags.next().toLowerCase(Locale.ROOT);
+            Integer tokenId = tokenIds.get(tag);
+            if (tokenId == null) {
+                tokenId = tokens.size();
+                tokenIds.put(tag, tokenId);
+                tokens.add(tag);
+                tokenEntries.add(new BitSet());
+                indexGrams(tag, tokenId);
+                for (WordMatch match : wordMatches.values()) {
+                    if (tag.contains(match.word)) {
+                        match.tokens.set(tokenId);
+                    }
+                }
+            }
+            tokenEntries.get(tokenId).set(entryId);
+            for (WordMatch match : wordMatches.values()) {
+                if (match.tokens.get(tokenId)) {
+                    match.entries.set(entryId);
+                    matchedWords.add(match);
+                }
+            }
+        }
+        for (WordMatch match : wordMatches.values()) {
+            if (!matchedWords.contains(match)) {
+                matchesAll = false;
+                break;
+            }
+        }
+        matches.set(entryId, matchesAll);
+        return entryId;
+    }
+    
+    private static final class WordMatch {
+        private final String word;
+        private final BitSet tokens;
+        private final BitSet entries;
+        
+        private WordMatch(String word, BitSet tokens, BitSet entries) {
+            this.word = word;
+            this.tokens = tokens;
+            this.entries = entries;
+        }
+    }
+}
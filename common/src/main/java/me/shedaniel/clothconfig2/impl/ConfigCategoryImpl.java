@@ -28,8 +28,10 @@ import net.fabricmc.api.Environment;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.FormattedText;
 import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
@@ -38,6 +40,7 @@ import java.util.function.Supplier;
 public class ConfigCategoryImpl implements ConfigCategory {
     private final ConfigBuilder builder;
     private final List<Object> data;
+    private final List<Supplier<List<AbstractConfigListEntry>>> lazyEntries = Lists.newArrayList();
     @Nullable
     private ResourceLocation background;
     private final Component categoryKey;
@@ -66,6 +69,35 @@ public class ConfigCategoryImpl implements ConfigCategory {
         return this;
     }
     
+    @Override
+    public ConfigCategory addLazyEntries(Supplier<List<AbstractConfigListEntry>> entries) {
+        lazyEntries.add(entries);
+        return this;
+    }
+    
+    @Override
+    public boolean hasLazyEntries() {
+        return !lazyEntries.isEmpty();
+    }
+    
+    /**
+     * Builds the pending lazy entries and appends them to {@link #getEntries()}.
+     *
+     * @return the entries built, empty if there were none pending
+     */
+    @ApiStatus.Internal
+    public List<Object> loadLazyEntries() {
+        if (lazyEntries.isEmpty())
+            return Collections.emptyList();
+        List<Object> loaded = Lists.newArrayList();
+        // Suppliers may add more lazy entries while building
+        while (!lazyEntries.isEmpty()) {
+            loaded.addAll(lazyEntries.remove(0).get());
+        }
+        data.addAll(loaded);
+        return loaded;
+    }
+    
     @Override
     public ConfigCategory setCategoryBackground(ResourceLocation identifier) {
         if (builder.hasTransparentBackground())
@@ -19,6 +19,7 @@
 
 package me.shedaniel.autoconfig.util.fabric;
 
+import net.fabricmc.api.EnvType;
 import net.fabricmc.loader.api.FabricLoader;
 
 import java.nio.file.Path;
@@ -27,4 +28,8 @@ public class UtilsImpl {
     public static Path getConfigFolder() {
         return FabricLoader.getInstance().getConfigDir();
     }
+    
+    public static boolean isClient() {
+        return FabricLoader.getInstance().getEnvironmentType() == EnvType.CLIENT;
+    }
 }
@@ -19,6 +19,8 @@
 
 package me.shedaniel.autoconfig.util.forge;
 
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.loading.FMLEnvironment;
 import net.minecraftforge.fml.loading.FMLPaths;
 
 import java.nio.file.Path;
@@ -27,4 +29,8 @@ public class UtilsImpl {
     public static Path getConfigFolder() {
         return FMLPaths.CONFIGDIR.get();
     }
+    
+    public static boolean isClient() {
+        return FMLEnvironment.dist == Dist.CLIENT;
+    }
 }